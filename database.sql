@@ -37,6 +37,36 @@ CREATE TABLE `awarded_level` (
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `event_delivery`
+--
+
+CREATE TABLE `event_delivery` (
+  `id` bigint(20) NOT NULL,
+  `entry_id` bigint(20) NOT NULL,
+  `guild_id` bigint(20) NOT NULL,
+  `channel_id` bigint(20) NOT NULL,
+  `content` text NOT NULL,
+  `status` tinyint(4) NOT NULL DEFAULT '0',
+  `message_id` bigint(20) NOT NULL DEFAULT '0',
+  `update_date` datetime NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `event_journal`
+--
+
+CREATE TABLE `event_journal` (
+  `id` bigint(20) NOT NULL,
+  `event_name` varchar(64) NOT NULL,
+  `embed` text NOT NULL,
+  `insert_date` datetime NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `gd_mod`
 --
@@ -76,6 +106,18 @@ CREATE TABLE `guild_settings` (
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `scan_checkpoint`
+--
+
+CREATE TABLE `scan_checkpoint` (
+  `name` varchar(32) NOT NULL,
+  `state` text NOT NULL,
+  `update_date` datetime NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `timely_level`
 --
@@ -109,6 +151,21 @@ CREATE TABLE `user_settings` (
 ALTER TABLE `awarded_level`
   ADD PRIMARY KEY (`level_id`);
 
+--
+-- Indexes for table `event_delivery`
+--
+ALTER TABLE `event_delivery`
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `entry_id` (`entry_id`),
+  ADD KEY `status` (`status`);
+
+--
+-- Indexes for table `event_journal`
+--
+ALTER TABLE `event_journal`
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `insert_date` (`insert_date`);
+
 --
 -- Indexes for table `gd_mod`
 --
@@ -127,6 +184,12 @@ ALTER TABLE `global_settings`
 ALTER TABLE `guild_settings`
   ADD PRIMARY KEY (`guild_id`);
 
+--
+-- Indexes for table `scan_checkpoint`
+--
+ALTER TABLE `scan_checkpoint`
+  ADD PRIMARY KEY (`name`);
+
 --
 -- Indexes for table `timely_level`
 --
@@ -143,6 +206,18 @@ ALTER TABLE `user_settings`
 -- AUTO_INCREMENT for dumped tables
 --
 
+--
+-- AUTO_INCREMENT for table `event_delivery`
+--
+ALTER TABLE `event_delivery`
+  MODIFY `id` bigint(20) NOT NULL AUTO_INCREMENT;
+
+--
+-- AUTO_INCREMENT for table `event_journal`
+--
+ALTER TABLE `event_journal`
+  MODIFY `id` bigint(20) NOT NULL AUTO_INCREMENT;
+
 --
 -- AUTO_INCREMENT for table `global_settings`
 --
@@ -1,28 +1,155 @@
 package com.github.alex1304.ultimategdbot.cache;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.utils.CacheItemSupplier;
 
 /**
  * A cache store objects for later use. Objects stored there have a limited
  * lifetime. Writing and reading cache is thread-safe.
  *
+ * The cache is bounded both in number of entries and in estimated memory
+ * usage. When one of the bounds is exceeded, entries are evicted following a
+ * segmented LRU policy, which favors entries that have been read more than
+ * once.
+ *
+ * Loading missing entries is coalesced per key: if several threads miss the
+ * same entry at the same time, only one of them runs the supplier and the
+ * others wait for its result.
+ *
+ * Expired entries are reclaimed in the background by a sweeper that visits
+ * them in expiry order, so entries that are never read again don't stay in
+ * memory until they get evicted.
+ *
+ * Items of a single type identified by a numeric ID can be stored in a
+ * {@link CacheRegion} instead, created with
+ * {@link #createRegion(String, long, int, long)}. The memory budget of a
+ * region is taken from the budget of the cache, so the cache and its regions
+ * together never use more than the bound given to the cache.
+ *
+ * Failed lookups are remembered for a short time (see {@link NegativeResult}),
+ * so that they aren't retried against the Geometry Dash servers on every
+ * attempt.
+ *
+ * Statistics are recorded per namespace, the namespace of an entry being the
+ * first two dot-separated parts of its name ("gd.levelsearch" for
+ * "gd.levelsearch.foo0"). Each region is a namespace of its own.
+ *
+ * The content of the cache can be saved periodically to a snapshot file and
+ * restored on startup, see {@link #enableSnapshots(Path, long)}.
+ *
+ * An off-heap second tier can also be enabled with
+ * {@link #enableOffHeapTier(long)}: entries evicted from the heap are then
+ * kept there in serialized form, and move back to the heap when read again.
+ *
+ * Entries holding lists of levels are indexed by the IDs of these levels, so
+ * that they can be updated or removed when a GD event reports a change on one
+ * of them, see {@link #updateDependents(long, UnaryOperator)}.
+ *
  * @author Alex1304
  */
-public class Cache {
+public class Cache implements AutoCloseable {
 
 	private static final long DEFAULT_LIFETIME = 3_600_000;
+	public static final int DEFAULT_MAX_ENTRIES = 50_000;
+	public static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+	private static final long SWEEP_TICK = 1000;
+	private static final int WHEEL_SIZE = 512;
 
 	private ConcurrentHashMap<String, CacheEntry> store;
+	private SegmentedLruPolicy policy;
+	private CacheWeigher weigher;
+	private LongAdder evictionCount;
+	private ConcurrentHashMap<String, CompletableFuture<Object>> loading;
+	private ExecutorService loaderExecutor;
+	private ScheduledExecutorService sweeper;
+	private volatile ScheduledExecutorService snapshotter;
+	private volatile Thread snapshotHook;
+	private TimingWheel expiryWheel;
+	private LongAdder reclaimedCount;
+	private ConcurrentHashMap<String, CacheRegion<?>> regions;
+	private volatile long notFoundLifetime;
+	private volatile long errorLifetime;
+	private volatile CacheStats[] namespaces;
+	private volatile Path snapshotFile;
+	private volatile OffHeapTier offHeapTier;
+	private ConcurrentHashMap<Long, Set<CacheEntry>> dependents;
 
 	public Cache() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            - the maximum number of entries the cache can hold
+	 * @param maxBytes
+	 *            - the maximum estimated memory usage of the cache, in bytes
+	 */
+	public Cache(int maxEntries, long maxBytes) {
+		this(maxEntries, maxBytes, new GDComponentWeigher());
+	}
+
+	/**
+	 * @param maxEntries
+	 *            - the maximum number of entries the cache can hold
+	 * @param maxBytes
+	 *            - the maximum estimated memory usage of the cache, in bytes
+	 * @param weigher
+	 *            - estimates the memory usage of each item
+	 */
+	public Cache(int maxEntries, long maxBytes, CacheWeigher weigher) {
+		if (maxEntries <= 0 || maxBytes <= 0)
+			throw new IllegalArgumentException("Cache bounds must be positive");
+
 		this.store = new ConcurrentHashMap<>();
+		this.policy = new SegmentedLruPolicy(maxEntries, maxBytes);
+		this.weigher = weigher;
+		this.evictionCount = new LongAdder();
+		this.loading = new ConcurrentHashMap<>();
+		this.loaderExecutor = Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "cache-loader");
+			t.setDaemon(true);
+			return t;
+		});
+		this.expiryWheel = new TimingWheel(SWEEP_TICK, WHEEL_SIZE);
+		this.reclaimedCount = new LongAdder();
+		this.regions = new ConcurrentHashMap<>();
+		this.namespaces = new CacheStats[0];
+		this.dependents = new ConcurrentHashMap<>();
+
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "cache-sweeper");
+			t.setDaemon(true);
+			return t;
+		});
+		sweeper.scheduleWithFixedDelay(this::sweep, SWEEP_TICK, SWEEP_TICK, TimeUnit.MILLISECONDS);
 	}
 
 	/**
 	 * Writes a new entry into the cache.
-	 * 
+	 *
 	 * @param entryName
 	 *            - the unique identifier for the entry
 	 * @param item
@@ -32,16 +159,43 @@ public class Cache {
 	 *            milliseconds)
 	 */
 	public void write(String entryName, Object item, long lifetime) {
-		if (item == null)
-			store.remove(entryName);
-		else
-			store.put(entryName, new CacheEntry(item, System.currentTimeMillis() + lifetime));
+		OffHeapTier tier = offHeapTier;
+		if (tier != null)
+			tier.remove(entryName);
+
+		if (item == null) {
+			CacheEntry old = store.remove(entryName);
+			if (old != null)
+				retire(old);
+			return;
+		}
+
+		put(entryName, item, lifetime);
+	}
+
+	private CacheEntry put(String entryName, Object item, long lifetime) {
+		CacheEntry entry = new CacheEntry(item, System.currentTimeMillis() + lifetime, weigher.weigh(item));
+		entry.key = entryName;
+		entry.stats = statsFor(entryName);
+		entry.dependencies = GDComponentDependencies.of(item);
+
+		// Indexed and scheduled before being visible, so that a concurrent overwrite always finds it there
+		index(entry);
+		expiryWheel.schedule(entry);
+		CacheEntry old = store.put(entryName, entry);
+		entry.stats.recordInsert(entry);
+
+		if (old != null)
+			retire(old);
+
+		evict(policy.onInsert(entry));
+		return entry;
 	}
 
 	/**
 	 * Writes a new entry into the cache. A default lifetime of 1 hour will be
 	 * applied.
-	 * 
+	 *
 	 * @param entryName
 	 *            - the unique identifier for the entry
 	 * @param item
@@ -54,29 +208,38 @@ public class Cache {
 	/**
 	 * Reads the entry with the given name, returns null if the entry doesn't
 	 * exist or if the item has expired.
-	 * 
+	 *
 	 * @param entryName
 	 *            - the unique identifier for the entry
 	 * @return Object
 	 */
 	public Object read(String entryName) {
-		CacheEntry entry = store.get(entryName);
-		if (entry == null)
-			return null;
-
-		if (entry.getExpiryTimestamp() < System.currentTimeMillis()) {
-			store.remove(entryName);
-			return null;
-		}
+		CacheEntry entry = lookup(entryName);
+		statsFor(entryName).recordRead(entry);
+		return entry == null || entry.getItem() instanceof NegativeItem ? null : entry.getItem();
+	}
 
-		return entry.getItem();
+	/**
+	 * Gets the failure remembered for the entry with the given name, or null
+	 * if the entry is in cache or if nothing is known about it.
+	 *
+	 * @param entryName
+	 *            - the unique identifier for the entry
+	 * @return NegativeResult
+	 */
+	public NegativeResult getNegative(String entryName) {
+		CacheEntry entry = lookup(entryName);
+		return entry != null && entry.getItem() instanceof NegativeItem ? ((NegativeItem) entry.getItem()).getResult() : null;
 	}
 
 	/**
 	 * Attempts to read an entry from the cache, if not found then a supplier
 	 * will be used to write a new entry. Any exception thrown inside the
-	 * supplier will make it return null
-	 * 
+	 * supplier will make it return null. If another thread is already loading
+	 * the same entry, this waits for its result instead of running the
+	 * supplier a second time. If a previous lookup of the entry failed
+	 * recently, this returns null without running the supplier.
+	 *
 	 * @param entryName
 	 *            - the unique identifier for the entry
 	 * @param itemSupplier
@@ -87,15 +250,17 @@ public class Cache {
 	 * @return Object
 	 */
 	public Object readAndWriteIfNotExists(String entryName, CacheItemSupplier<Object> itemSupplier, long lifetime) {
-		Object obj = read(entryName);
+		CacheEntry entry = lookup(entryName);
+		statsFor(entryName).recordRead(entry);
 
-		if (obj == null) {
-			obj = itemSupplier.getIgnoreExceptions();
-			if (obj != null)
-				write(entryName, obj, lifetime);
-		}
+		if (entry != null)
+			return entry.getItem() instanceof NegativeItem ? null : entry.getItem();
 
-		return obj;
+		try {
+			return load(entryName, itemSupplier, lifetime, Runnable::run).join();
+		} catch (CompletionException | CancellationException e) {
+			return null;
+		}
 	}
 
 	/**
@@ -103,12 +268,12 @@ public class Cache {
 	 * will be used to write a new entry. A default lifetime of 1 hour will be
 	 * applied. Any exception thrown inside the supplier will make it return
 	 * null
-	 * 
+	 *
 	 * @param entryName
 	 *            - the unique identifier for the entry
 	 * @param itemSupplier
 	 *            - Supplier that provides the new object to write in cache
-	 * 
+	 *
 	 * @return Object
 	 */
 	public Object readAndWriteIfNotExists(String entryName, CacheItemSupplier<Object> itemSupplier) {
@@ -116,10 +281,621 @@ public class Cache {
 	}
 
 	/**
-	 * Clears cache
+	 * Same as {@link #readAndWriteIfNotExists(String, CacheItemSupplier, long)},
+	 * but doesn't block the calling thread. The supplier runs in a background
+	 * thread if the entry isn't in cache. The returned future completes with
+	 * null if the supplier returned null, and completes exceptionally if the
+	 * supplier threw an exception, including when that failure is remembered
+	 * from a previous lookup.
+	 *
+	 * @param entryName
+	 *            - the unique identifier for the entry
+	 * @param itemSupplier
+	 *            - Supplier that provides the new object to write in cache
+	 * @param lifetime
+	 *            - the lifetime applied to the new object in case a new object
+	 *            should be written
+	 * @return CompletableFuture&lt;Object&gt;
+	 */
+	public CompletableFuture<Object> readAndWriteIfNotExistsAsync(String entryName, CacheItemSupplier<Object> itemSupplier, long lifetime) {
+		CacheEntry entry = lookup(entryName);
+		statsFor(entryName).recordRead(entry);
+
+		if (entry != null) {
+			CompletableFuture<Object> future = new CompletableFuture<>();
+			complete(future, entry);
+			return future;
+		}
+
+		return load(entryName, itemSupplier, lifetime, loaderExecutor);
+	}
+
+	/**
+	 * Same as {@link #readAndWriteIfNotExistsAsync(String, CacheItemSupplier, long)}
+	 * with a default lifetime of 1 hour.
+	 *
+	 * @param entryName
+	 *            - the unique identifier for the entry
+	 * @param itemSupplier
+	 *            - Supplier that provides the new object to write in cache
+	 * @return CompletableFuture&lt;Object&gt;
+	 */
+	public CompletableFuture<Object> readAndWriteIfNotExistsAsync(String entryName, CacheItemSupplier<Object> itemSupplier) {
+		return readAndWriteIfNotExistsAsync(entryName, itemSupplier, DEFAULT_LIFETIME);
+	}
+
+	/**
+	 * Creates a new region in this cache. The region has its own lifetime and
+	 * bounds, and its memory budget is taken from the budget of the cache:
+	 * the string-keyed entries are left with what the regions don't use.
+	 *
+	 * @param name
+	 *            - the unique name of the region
+	 * @param lifetime
+	 *            - how long the items of the region remain in cache (in
+	 *            milliseconds)
+	 * @param maxEntries
+	 *            - the maximum number of items the region can hold
+	 * @param maxBytes
+	 *            - the maximum estimated memory usage of the region, in bytes
+	 * @param <V>
+	 *            - the type of items stored in the region
+	 * @return CacheRegion&lt;V&gt;
+	 * @throws IllegalArgumentException
+	 *             if a region with the same name already exists, or if the
+	 *             budget of the region doesn't leave any room for the other
+	 *             entries of the cache
+	 */
+	public synchronized <V> CacheRegion<V> createRegion(String name, long lifetime, int maxEntries, long maxBytes) {
+		if (regions.containsKey(name))
+			throw new IllegalArgumentException("Cache region " + name + " already exists");
+
+		long remaining = policy.maxWeight() - maxBytes;
+		if (remaining <= 0)
+			throw new IllegalArgumentException("Cache region " + name + " needs " + maxBytes
+					+ " bytes but the cache only has " + policy.maxWeight() + " bytes left");
+
+		CacheRegion<V> region = new CacheRegion<>(name, lifetime, maxEntries, maxBytes, weigher, loaderExecutor);
+		region.setNotFoundLifetime(notFoundLifetime);
+		region.setErrorLifetime(errorLifetime);
+		region.setOffHeapTier(offHeapTier);
+		regions.put(name, region);
+
+		evict(policy.setMaxWeight(remaining));
+		return region;
+	}
+
+	/**
+	 * Sets how long, in milliseconds, the cache and all its regions remember
+	 * that an item doesn't exist. 0 disables it.
+	 *
+	 * @param notFoundLifetime
+	 *            - the lifetime of "not found" results
+	 */
+	public void setNotFoundLifetime(long notFoundLifetime) {
+		if (notFoundLifetime < 0)
+			throw new IllegalArgumentException("Lifetime must not be negative");
+		this.notFoundLifetime = notFoundLifetime;
+		regions.values().forEach(r -> r.setNotFoundLifetime(notFoundLifetime));
+	}
+
+	/**
+	 * Sets how long, in milliseconds, the cache and all its regions remember
+	 * that loading an item failed with an exception. 0 disables it.
+	 *
+	 * @param errorLifetime
+	 *            - the lifetime of "error" results
+	 */
+	public void setErrorLifetime(long errorLifetime) {
+		if (errorLifetime < 0)
+			throw new IllegalArgumentException("Lifetime must not be negative");
+		this.errorLifetime = errorLifetime;
+		regions.values().forEach(r -> r.setErrorLifetime(errorLifetime));
+	}
+
+	/**
+	 * Restores the entries saved in the given snapshot file, if it exists,
+	 * then saves the content of the cache to that file periodically and when
+	 * the JVM exits. Regions must be created before calling this method for
+	 * their entries to be restored. A snapshot that is corrupt or from
+	 * another version of the bot is ignored.
+	 *
+	 * @param file
+	 *            - the snapshot file
+	 * @param period
+	 *            - the time between two snapshots, in milliseconds
+	 */
+	public void enableSnapshots(Path file, long period) {
+		if (period <= 0)
+			throw new IllegalArgumentException("Snapshot period must be positive");
+
+		if (Files.exists(file)) {
+			try {
+				int count = CacheSnapshot.load(this, file);
+				System.out.println("[Cache] Restored " + count + " entries from " + file);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("[Cache] Ignoring snapshot " + file + ": " + e);
+			}
+		}
+
+		this.snapshotFile = file;
+
+		this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "cache-snapshot");
+			t.setDaemon(true);
+			return t;
+		});
+		snapshotter.scheduleWithFixedDelay(() -> {
+			try {
+				saveSnapshot();
+			} catch (IOException | RuntimeException e) {
+				UltimateGDBot.logException(e);
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+
+		this.snapshotHook = new Thread(() -> {
+			try {
+				saveSnapshot();
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+			}
+		}, "cache-snapshot-hook");
+		Runtime.getRuntime().addShutdownHook(snapshotHook);
+	}
+
+	/**
+	 * Saves the content of the cache to the snapshot file now. Does nothing if
+	 * snapshots aren't enabled.
+	 *
+	 * @return the number of entries saved
+	 * @throws IOException
+	 *             if the snapshot can't be written
+	 */
+	public synchronized int saveSnapshot() throws IOException {
+		if (snapshotFile == null)
+			return 0;
+
+		CacheSnapshot.Summary summary = CacheSnapshot.save(this, snapshotFile);
+		System.out.println("[Cache] Saved " + summary.saved + " entries to " + snapshotFile
+				+ (summary.skipped > 0 ? ", skipped " + summary.skipped + " that can't be serialized" : ""));
+		return summary.saved;
+	}
+
+	/**
+	 * Enables the off-heap second tier, shared by the cache and all its
+	 * regions. Items evicted from the heap are serialized into direct memory,
+	 * up to the given budget, and deserialized back when they are read again.
+	 * Only serializable items can go to this tier.
+	 *
+	 * @param maxBytes
+	 *            - the maximum amount of direct memory the tier can use
+	 */
+	public void enableOffHeapTier(long maxBytes) {
+		OffHeapTier tier = new OffHeapTier(maxBytes);
+		this.offHeapTier = tier;
+		regions.values().forEach(r -> r.setOffHeapTier(tier));
+	}
+
+	/**
+	 * Gets the off-heap tier, or null if it isn't enabled
+	 *
+	 * @return OffHeapTier
+	 */
+	public OffHeapTier getOffHeapTier() {
+		return offHeapTier;
+	}
+
+	/**
+	 * Replaces every entry built from the GD component with the given ID by
+	 * the result of the given function, keeping the original expiry. Entries
+	 * for which the function returns null are removed. Entries that were moved
+	 * to the off-heap tier are removed rather than updated.
+	 *
+	 * @param componentID
+	 *            - the ID of the component that changed
+	 * @param updater
+	 *            - gives the new item from the old one
+	 * @return the number of entries updated or removed
+	 */
+	public int updateDependents(long componentID, UnaryOperator<Object> updater) {
+		Set<CacheEntry> entries = dependents.remove(componentID);
+		if (entries == null)
+			return 0;
+
+		OffHeapTier tier = offHeapTier;
+		long now = System.currentTimeMillis();
+		int count = 0;
+
+		for (CacheEntry entry : entries) {
+			String entryName = (String) entry.key;
+
+			if (entry.getItem() == null) {
+				if (tier != null)
+					tier.remove(entryName);
+				count++;
+				continue;
+			}
+
+			if (entry.getExpiryTimestamp() <= now || store.get(entryName) != entry)
+				continue;
+
+			Object updated = updater.apply(entry.getItem());
+
+			if (updated == null) {
+				if (store.remove(entryName, entry)) {
+					retire(entry);
+					count++;
+				}
+			} else {
+				put(entryName, updated, entry.getExpiryTimestamp() - now);
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Removes every entry built from the GD component with the given ID
+	 *
+	 * @param componentID
+	 *            - the ID of the component that changed
+	 * @return the number of entries removed
+	 */
+	public int invalidateDependents(long componentID) {
+		return updateDependents(componentID, item -> null);
+	}
+
+	/**
+	 * Gets the regions of this cache
+	 *
+	 * @return Collection&lt;CacheRegion&lt;?&gt;&gt;
+	 */
+	public Collection<CacheRegion<?>> getRegions() {
+		return Collections.unmodifiableCollection(regions.values());
+	}
+
+	/**
+	 * Clears cache, including all regions
 	 */
 	public void clear() {
 		store.clear();
+		policy.clear();
+		expiryWheel.clear();
+		dependents.clear();
+		regions.values().forEach(CacheRegion::clear);
+
+		OffHeapTier tier = offHeapTier;
+		if (tier != null)
+			tier.clear();
+
+		for (CacheStats stats : namespaces)
+			stats.recordClear();
+	}
+
+	/**
+	 * Stops the threads this cache runs in the background: the loaders, the
+	 * sweeper and the snapshots. Loads already running are allowed to finish,
+	 * but nothing is saved to the snapshot file anymore, so call
+	 * {@link #saveSnapshot()} first if the content should be kept. The entries
+	 * remain readable, but expired ones are no longer reclaimed.
+	 */
+	@Override
+	public void close() {
+		loaderExecutor.shutdown();
+		sweeper.shutdownNow();
+
+		ScheduledExecutorService snapshotter = this.snapshotter;
+		if (snapshotter != null)
+			snapshotter.shutdownNow();
+
+		Thread hook = snapshotHook;
+		if (hook != null) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(hook);
+			} catch (IllegalStateException e) {
+				// The JVM is already exiting, so the hook runs anyway
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of entries currently in cache, including the ones that
+	 * have expired but haven't been removed yet
+	 *
+	 * @return int
+	 */
+	public int size() {
+		return store.size();
+	}
+
+	/**
+	 * Gets the estimated memory usage of the string-keyed entries of the
+	 * cache, in bytes, regions excluded
+	 *
+	 * @return long
+	 */
+	public long weightedSize() {
+		return policy.weightedSize();
+	}
+
+	/**
+	 * Gets the estimated memory usage of the cache and all its regions, in
+	 * bytes. It never exceeds the bound given to the cache.
+	 *
+	 * @return long
+	 */
+	public long totalWeightedSize() {
+		long total = policy.weightedSize();
+		for (CacheRegion<?> region : regions.values())
+			total += region.weightedSize();
+		return total;
+	}
+
+	/**
+	 * Gets the number of entries that have been evicted because the cache was
+	 * full
+	 *
+	 * @return long
+	 */
+	public long evictionCount() {
+		return evictionCount.sum();
+	}
+
+	/**
+	 * Takes a snapshot of the statistics of each namespace of the cache,
+	 * regions included, sorted by name
+	 *
+	 * @return List&lt;CacheStatsSnapshot&gt;
+	 */
+	public List<CacheStatsSnapshot> stats() {
+		List<CacheStatsSnapshot> result = new ArrayList<>();
+
+		for (CacheStats stats : namespaces)
+			result.add(stats.snapshot());
+		for (CacheRegion<?> region : regions.values())
+			result.add(region.stats());
+
+		result.sort(Comparator.comparing(CacheStatsSnapshot::getNamespace));
+		return result;
+	}
+
+	/**
+	 * Gets the number of expired entries that have been removed by the
+	 * background sweeper
+	 *
+	 * @return long
+	 */
+	public long reclaimedCount() {
+		return reclaimedCount.sum();
+	}
+
+	/**
+	 * Returns the future of the load in progress for this entry, or starts a
+	 * new one on the given executor if there is none.
+	 */
+	private CompletableFuture<Object> load(String entryName, CacheItemSupplier<Object> itemSupplier, long lifetime, Executor executor) {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> inFlight = loading.putIfAbsent(entryName, future);
+
+		if (inFlight != null)
+			return inFlight;
+
+		// The previous load may have finished between our cache miss and now
+		CacheEntry entry = lookup(entryName);
+		if (entry != null) {
+			loading.remove(entryName, future);
+			complete(future, entry);
+			return future;
+		}
+
+		CacheStats stats = statsFor(entryName);
+
+		executor.execute(() -> {
+			long start = System.nanoTime();
+
+			try {
+				Object item = itemSupplier.get();
+				stats.recordLoad(true, System.nanoTime() - start);
+				if (item != null)
+					write(entryName, item, lifetime);
+				else if (notFoundLifetime > 0)
+					write(entryName, new NegativeItem(NegativeResult.NOT_FOUND, null), notFoundLifetime);
+				future.complete(item);
+			} catch (Exception e) {
+				stats.recordLoad(false, System.nanoTime() - start);
+				UltimateGDBot.logException(e);
+				if (errorLifetime > 0)
+					write(entryName, new NegativeItem(NegativeResult.ERROR, e), errorLifetime);
+				future.completeExceptionally(e);
+			} catch (Throwable t) {
+				// Not cached, but waiters must not block forever
+				stats.recordLoad(false, System.nanoTime() - start);
+				future.completeExceptionally(t);
+				throw t;
+			} finally {
+				loading.remove(entryName, future);
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Gets all entries of the string-keyed store, for snapshots
+	 *
+	 * @return List&lt;CacheEntry&gt;
+	 */
+	List<CacheEntry> entries() {
+		return new ArrayList<>(store.values());
+	}
+
+	/**
+	 * Gets the region with the given name, or null if there is none
+	 *
+	 * @param name
+	 *            - the name of the region
+	 * @return CacheRegion&lt;?&gt;
+	 */
+	CacheRegion<?> getRegion(String name) {
+		return regions.get(name);
+	}
+
+	/**
+	 * Writes an item restored from a snapshot, keeping its original expiry
+	 * timestamp
+	 *
+	 * @param entryName
+	 *            - the unique identifier for the entry
+	 * @param item
+	 *            - the item
+	 * @param expiryTimestamp
+	 *            - when the item expires
+	 */
+	void restore(String entryName, Object item, long expiryTimestamp) {
+		long lifetime = expiryTimestamp - System.currentTimeMillis();
+		if (lifetime > 0)
+			write(entryName, item, lifetime);
+	}
+
+	/**
+	 * Finds the namespace of the given entry without allocating anything, as
+	 * there are only a handful of namespaces.
+	 */
+	private CacheStats statsFor(String entryName) {
+		for (CacheStats stats : namespaces) {
+			int length = stats.getName().length();
+			if (entryName.startsWith(stats.getName()) && (entryName.length() == length || entryName.charAt(length) == '.'))
+				return stats;
+		}
+
+		return registerNamespace(entryName);
+	}
+
+	private synchronized CacheStats registerNamespace(String entryName) {
+		int firstDot = entryName.indexOf('.');
+		int secondDot = firstDot < 0 ? -1 : entryName.indexOf('.', firstDot + 1);
+		String name = secondDot < 0 ? "other" : entryName.substring(0, secondDot);
+
+		for (CacheStats stats : namespaces)
+			if (stats.getName().equals(name))
+				return stats;
+
+		CacheStats stats = new CacheStats(name);
+		CacheStats[] updated = Arrays.copyOf(namespaces, namespaces.length + 1);
+		updated[updated.length - 1] = stats;
+		namespaces = updated;
+		return stats;
+	}
+
+	private CacheEntry lookup(String entryName) {
+		CacheEntry entry = store.get(entryName);
+		OffHeapTier tier = offHeapTier;
+
+		if (entry == null && tier != null) {
+			CacheEntry promoted = tier.promote(entryName);
+			if (promoted != null)
+				return put(entryName, promoted.getItem(), promoted.getExpiryTimestamp() - System.currentTimeMillis());
+		}
+
+		if (entry == null)
+			return null;
+
+		if (entry.getExpiryTimestamp() < System.currentTimeMillis()) {
+			if (store.remove(entryName, entry))
+				retire(entry);
+			return null;
+		}
+
+		policy.onAccess(entry);
+		return entry;
+	}
+
+	private void complete(CompletableFuture<Object> future, CacheEntry entry) {
+		if (!(entry.getItem() instanceof NegativeItem))
+			future.complete(entry.getItem());
+		else if (((NegativeItem) entry.getItem()).getCause() != null)
+			future.completeExceptionally(((NegativeItem) entry.getItem()).getCause());
+		else
+			future.complete(null);
+	}
+
+	private void evict(List<CacheEntry> victims) {
+		for (CacheEntry victim : victims) {
+			expiryWheel.cancel(victim);
+			if (store.remove((String) victim.key, victim)) {
+				victim.stats.recordEviction(victim);
+				evictionCount.increment();
+
+				unindex(victim);
+
+				OffHeapTier tier = offHeapTier;
+				if (tier != null && !(victim.getItem() instanceof NegativeItem)) {
+					tier.demote(victim.key, victim.getItem(), victim.getExpiryTimestamp());
+					if (victim.dependencies.length > 0)
+						indexDemoted(victim);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps a demoted entry reachable from the dependency index until it
+	 * expires, through a placeholder that doesn't hold the item
+	 */
+	private void indexDemoted(CacheEntry victim) {
+		CacheEntry placeholder = new CacheEntry(null, victim.getExpiryTimestamp());
+		placeholder.key = victim.key;
+		placeholder.dependencies = victim.dependencies;
+		index(placeholder);
+		expiryWheel.schedule(placeholder);
+	}
+
+	private void index(CacheEntry entry) {
+		for (long id : entry.dependencies) {
+			dependents.compute(id, (k, entries) -> {
+				Set<CacheEntry> result = entries == null ? new HashSet<>() : entries;
+				result.add(entry);
+				return result;
+			});
+		}
+	}
+
+	private void unindex(CacheEntry entry) {
+		for (long id : entry.dependencies) {
+			dependents.computeIfPresent(id, (k, entries) -> {
+				entries.remove(entry);
+				return entries.isEmpty() ? null : entries;
+			});
+		}
+	}
+
+	private void retire(CacheEntry entry) {
+		entry.stats.recordRemoval(entry);
+		policy.onRemove(entry);
+		expiryWheel.cancel(entry);
+		unindex(entry);
+	}
+
+	private void sweep() {
+		try {
+			long now = System.currentTimeMillis();
+
+			for (CacheEntry entry : expiryWheel.advance(now)) {
+				if (store.remove((String) entry.key, entry)) {
+					policy.onRemove(entry);
+					entry.stats.recordRemoval(entry);
+					reclaimedCount.increment();
+				}
+				unindex(entry);
+			}
+
+			for (CacheRegion<?> region : regions.values())
+				region.sweep(now);
+		} catch (RuntimeException e) {
+			// An uncaught exception would cancel the periodic task
+			UltimateGDBot.logException(e);
+		}
 	}
 
 }
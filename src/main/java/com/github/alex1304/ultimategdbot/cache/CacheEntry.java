@@ -9,16 +9,47 @@ public class CacheEntry {
 
 	private Object item;
 	private long expiryTimestamp;
-	
+	private long weight;
+
+	// Bookkeeping for the eviction policy, only accessed while holding the policy lock
+	Object key;
+	long id;
+	CacheStats stats;
+	CacheEntry prev;
+	CacheEntry next;
+	int segment;
+	boolean retired;
+
+	// Refresh-ahead state for entries of regions that have a refresh delay
+	long refreshTimestamp = Long.MAX_VALUE;
+	volatile long nextRefreshAttempt = Long.MAX_VALUE;
+
+	// Bookkeeping for the expiry wheel, only accessed while holding the wheel lock
+	CacheEntry wheelPrev;
+	CacheEntry wheelNext;
+
+	// IDs of the GD components the item was built from, see GDComponentDependencies
+	long[] dependencies = GDComponentDependencies.NONE;
+
 	/**
 	 * @param item
 	 * @param expiryTimestamp
 	 */
 	public CacheEntry(Object item, long expiryTimestamp) {
+		this(item, expiryTimestamp, 0);
+	}
+
+	/**
+	 * @param item
+	 * @param expiryTimestamp
+	 * @param weight
+	 */
+	public CacheEntry(Object item, long expiryTimestamp, long weight) {
 		this.item = item;
 		this.expiryTimestamp = expiryTimestamp;
+		this.weight = weight;
 	}
-	
+
 	/**
 	 * Gets the item
 	 *
@@ -36,4 +67,13 @@ public class CacheEntry {
 		return expiryTimestamp;
 	}
 
+	/**
+	 * Gets the estimated size of the item in bytes
+	 *
+	 * @return long
+	 */
+	public long getWeight() {
+		return weight;
+	}
+
 }
@@ -0,0 +1,694 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.utils.CacheItemSupplier;
+
+/**
+ * A region of the cache that holds items of a single type, identified by a
+ * numeric ID (account ID, level ID...). Unlike the string-keyed entries of
+ * {@link Cache}, reading a region doesn't need to build a key nor to cast the
+ * result.
+ *
+ * Each region has its own lifetime and its own bounds, and evicts entries
+ * following the same segmented LRU policy as the main cache.
+ *
+ * A region can also refresh its items ahead of expiry: once an item is older
+ * than the refresh delay, {@link #readAndWriteIfNotExists(long, CacheItemSupplier)}
+ * still returns it immediately, but reloads it in the background. The lifetime
+ * of the region remains the upper bound on how stale an item can be.
+ *
+ * Failed lookups are remembered for a short time as well (see
+ * {@link NegativeResult}), so that they aren't retried on every attempt. Use
+ * {@link #getNegative(long)} to know if a null result comes from such a
+ * failure.
+ *
+ * @param <V> - the type of items stored in this region
+ *
+ * @author Alex1304
+ */
+public class CacheRegion<V> {
+
+	private static final long SWEEP_TICK = 1000;
+	private static final int WHEEL_SIZE = 512;
+	private static final long REFRESH_RETRY_DELAY = 30_000;
+
+	private final String name;
+	private final long lifetime;
+	private final ReadWriteLock lock;
+	private final LongEntryMap store;
+	private final SegmentedLruPolicy policy;
+	private final TimingWheel expiryWheel;
+	private final CacheWeigher weigher;
+	private final Executor loaderExecutor;
+	private final ConcurrentHashMap<Long, CompletableFuture<V>> loading;
+	private final CacheStats stats;
+	private final LongAdder reclaimedCount;
+	private final LongAdder staleServeCount;
+	private final LongAdder blockingLoadCount;
+	private final LongAdder refreshCount;
+	private volatile long refreshAfter;
+	private volatile long notFoundLifetime;
+	private volatile long errorLifetime;
+	private volatile OffHeapTier offHeapTier;
+
+	CacheRegion(String name, long lifetime, int maxEntries, long maxBytes, CacheWeigher weigher, Executor loaderExecutor) {
+		if (lifetime <= 0 || maxEntries <= 0 || maxBytes <= 0)
+			throw new IllegalArgumentException("Cache region parameters must be positive");
+
+		this.name = name;
+		this.lifetime = lifetime;
+		this.lock = new ReentrantReadWriteLock();
+		this.store = new LongEntryMap();
+		this.policy = new SegmentedLruPolicy(maxEntries, maxBytes);
+		this.expiryWheel = new TimingWheel(SWEEP_TICK, WHEEL_SIZE);
+		this.weigher = weigher;
+		this.loaderExecutor = loaderExecutor;
+		this.loading = new ConcurrentHashMap<>();
+		this.stats = new CacheStats(name);
+		this.reclaimedCount = new LongAdder();
+		this.staleServeCount = new LongAdder();
+		this.blockingLoadCount = new LongAdder();
+		this.refreshCount = new LongAdder();
+		this.refreshAfter = 0;
+		this.notFoundLifetime = 0;
+		this.errorLifetime = 0;
+	}
+
+	/**
+	 * Writes a new entry into this region, with the lifetime of the region.
+	 * Writing null removes the entry.
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @param item
+	 *            - the item to write
+	 */
+	public void write(long id, V item) {
+		if (item == null) {
+			invalidate(id);
+			return;
+		}
+
+		put(id, item, lifetime);
+	}
+
+	private CacheEntry put(long id, Object item, long lifetime) {
+		OffHeapTier tier = offHeapTier;
+		if (tier != null)
+			tier.remove(new TierKey(name, id));
+
+		long now = System.currentTimeMillis();
+		CacheEntry entry = new CacheEntry(item, now + lifetime, weigher.weigh(item));
+		entry.id = id;
+
+		long refreshAfter = this.refreshAfter;
+		if (!(item instanceof NegativeItem) && refreshAfter > 0 && refreshAfter < lifetime) {
+			entry.refreshTimestamp = now + refreshAfter;
+			entry.nextRefreshAttempt = entry.refreshTimestamp;
+		}
+
+		CacheEntry old;
+
+		// Scheduled before being visible, so that a concurrent overwrite always cancels it
+		expiryWheel.schedule(entry);
+
+		lock.writeLock().lock();
+		try {
+			old = store.put(id, entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		stats.recordInsert(entry);
+
+		if (old != null)
+			retire(old);
+
+		evict(policy.onInsert(entry));
+		return entry;
+	}
+
+	/**
+	 * Reads the item with the given ID, returns null if the item isn't in
+	 * this region or if it has expired.
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @return V
+	 */
+	@SuppressWarnings("unchecked")
+	public V read(long id) {
+		CacheEntry entry = lookup(id);
+		stats.recordRead(entry);
+		return entry == null || entry.getItem() instanceof NegativeItem ? null : (V) entry.getItem();
+	}
+
+	/**
+	 * Gets the failure remembered for the item with the given ID, or null if
+	 * the item is in cache or if nothing is known about it.
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @return NegativeResult
+	 */
+	public NegativeResult getNegative(long id) {
+		CacheEntry entry = lookup(id);
+		return entry != null && entry.getItem() instanceof NegativeItem ? ((NegativeItem) entry.getItem()).getResult() : null;
+	}
+
+	/**
+	 * Attempts to read an item from this region, if not found then a supplier
+	 * will be used to write it. Any exception thrown inside the supplier will
+	 * make it return null, errors are rethrown. If another thread is already
+	 * loading the same item, this waits for its result instead of running the
+	 * supplier a second time.
+	 *
+	 * If the item is due for a refresh, it is returned as is and the supplier
+	 * is run in the background to replace it. If a previous lookup of the item
+	 * failed recently, this returns null without running the supplier.
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @param itemSupplier
+	 *            - Supplier that provides the item to write in cache
+	 * @return V
+	 */
+	@SuppressWarnings("unchecked")
+	public V readAndWriteIfNotExists(long id, CacheItemSupplier<V> itemSupplier) {
+		CacheEntry entry = lookup(id);
+		stats.recordRead(entry);
+
+		if (entry != null) {
+			if (entry.getItem() instanceof NegativeItem)
+				return null;
+			refreshIfStale(entry, () -> supply(itemSupplier, loaderExecutor));
+			return (V) entry.getItem();
+		}
+
+		blockingLoadCount.increment();
+
+		try {
+			return load(id, () -> supply(itemSupplier, Runnable::run), false).join();
+		} catch (CompletionException e) {
+			// Like Cache, only exceptions turn into null, errors reach the caller
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			return null;
+		} catch (CancellationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Same as {@link #readAndWriteIfNotExists(long, CacheItemSupplier)}, but
+	 * doesn't block the calling thread. The returned future completes
+	 * exceptionally if the supplier threw an exception, including when that
+	 * failure is remembered from a previous lookup.
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @param itemSupplier
+	 *            - Supplier that provides the item to write in cache
+	 * @return CompletableFuture&lt;V&gt;
+	 */
+	public CompletableFuture<V> readAndWriteIfNotExistsAsync(long id, CacheItemSupplier<V> itemSupplier) {
+		CacheEntry entry = lookup(id);
+		stats.recordRead(entry);
+
+		if (entry != null) {
+			CompletableFuture<V> future = new CompletableFuture<>();
+			refreshIfStale(entry, () -> supply(itemSupplier, loaderExecutor));
+			complete(future, entry);
+			return future;
+		}
+
+		return load(id, () -> supply(itemSupplier, loaderExecutor), false);
+	}
+
+	/**
+	 * Same as {@link #readAndWriteIfNotExistsAsync(long, CacheItemSupplier)},
+	 * for items that are loaded asynchronously, for example through the
+	 * {@link com.github.alex1304.ultimategdbot.gateway.GDGateway}. No thread
+	 * is blocked while the item is being loaded.
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @param itemLoader
+	 *            - starts loading the item and gives the future result
+	 * @return CompletableFuture&lt;V&gt;
+	 */
+	public CompletableFuture<V> readAndLoadIfNotExistsAsync(long id, Supplier<CompletableFuture<V>> itemLoader) {
+		CacheEntry entry = lookup(id);
+		stats.recordRead(entry);
+
+		if (entry != null) {
+			CompletableFuture<V> future = new CompletableFuture<>();
+			refreshIfStale(entry, itemLoader);
+			complete(future, entry);
+			return future;
+		}
+
+		return load(id, itemLoader, false);
+	}
+
+	/**
+	 * Removes the item with the given ID from this region
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 */
+	public void invalidate(long id) {
+		CacheEntry old;
+
+		lock.writeLock().lock();
+		try {
+			old = store.remove(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		if (old != null)
+			retire(old);
+
+		OffHeapTier tier = offHeapTier;
+		if (tier != null)
+			tier.remove(new TierKey(name, id));
+	}
+
+	/**
+	 * Removes all items from this region
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			store.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		policy.clear();
+		expiryWheel.clear();
+		stats.recordClear();
+	}
+
+	/**
+	 * Sets how old an item must be before it is refreshed in the background,
+	 * in milliseconds. A value of 0, or a value greater than the lifetime of
+	 * the region, disables refreshing. Only applies to items written after
+	 * the call.
+	 *
+	 * @param refreshAfter
+	 *            - the refresh delay
+	 */
+	public void setRefreshAfter(long refreshAfter) {
+		if (refreshAfter < 0)
+			throw new IllegalArgumentException("Refresh delay must not be negative");
+		this.refreshAfter = refreshAfter;
+	}
+
+	/**
+	 * Gets how old an item must be before it is refreshed in the background,
+	 * in milliseconds, or 0 if refreshing is disabled
+	 *
+	 * @return long
+	 */
+	public long getRefreshAfter() {
+		return refreshAfter;
+	}
+
+	/**
+	 * Sets how long, in milliseconds, this region remembers that an item
+	 * doesn't exist. 0 disables it.
+	 *
+	 * @param notFoundLifetime
+	 *            - the lifetime of "not found" results
+	 */
+	public void setNotFoundLifetime(long notFoundLifetime) {
+		if (notFoundLifetime < 0)
+			throw new IllegalArgumentException("Lifetime must not be negative");
+		this.notFoundLifetime = notFoundLifetime;
+	}
+
+	/**
+	 * Sets how long, in milliseconds, this region remembers that loading an
+	 * item failed with an exception. 0 disables it.
+	 *
+	 * @param errorLifetime
+	 *            - the lifetime of "error" results
+	 */
+	public void setErrorLifetime(long errorLifetime) {
+		if (errorLifetime < 0)
+			throw new IllegalArgumentException("Lifetime must not be negative");
+		this.errorLifetime = errorLifetime;
+	}
+
+	/**
+	 * Sets the off-heap tier where evicted items go, or null to disable it
+	 *
+	 * @param offHeapTier
+	 *            - the tier, shared with the cache owning this region
+	 */
+	void setOffHeapTier(OffHeapTier offHeapTier) {
+		this.offHeapTier = offHeapTier;
+	}
+
+	/**
+	 * Gets the name of this region
+	 *
+	 * @return String
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the lifetime of the items of this region, in milliseconds
+	 *
+	 * @return long
+	 */
+	public long getLifetime() {
+		return lifetime;
+	}
+
+	/**
+	 * Gets the number of items currently in this region
+	 *
+	 * @return int
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return store.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the estimated memory usage of this region, in bytes
+	 *
+	 * @return long
+	 */
+	public long weightedSize() {
+		return policy.weightedSize();
+	}
+
+	/**
+	 * Gets the number of items that have been evicted because this region was
+	 * full
+	 *
+	 * @return long
+	 */
+	public long evictionCount() {
+		return stats.evictionCount();
+	}
+
+	/**
+	 * Gets the number of expired items that have been removed by the
+	 * background sweeper
+	 *
+	 * @return long
+	 */
+	public long reclaimedCount() {
+		return reclaimedCount.sum();
+	}
+
+	/**
+	 * Gets the number of times an item due for a refresh was returned while
+	 * being reloaded in the background
+	 *
+	 * @return long
+	 */
+	public long staleServeCount() {
+		return staleServeCount.sum();
+	}
+
+	/**
+	 * Gets the number of times a caller had to wait for an item to be loaded
+	 * because it wasn't in cache
+	 *
+	 * @return long
+	 */
+	public long blockingLoadCount() {
+		return blockingLoadCount.sum();
+	}
+
+	/**
+	 * Gets the number of background refreshes that have been started
+	 *
+	 * @return long
+	 */
+	public long refreshCount() {
+		return refreshCount.sum();
+	}
+
+	/**
+	 * Takes a snapshot of the statistics of this region
+	 *
+	 * @return CacheStatsSnapshot
+	 */
+	public CacheStatsSnapshot stats() {
+		return stats.snapshot();
+	}
+
+	/**
+	 * Gets all entries of this region, for snapshots
+	 *
+	 * @return List&lt;CacheEntry&gt;
+	 */
+	List<CacheEntry> entries() {
+		lock.readLock().lock();
+		try {
+			return store.values();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes an item restored from a snapshot, keeping its original expiry
+	 * timestamp
+	 *
+	 * @param id
+	 *            - the ID of the item
+	 * @param item
+	 *            - the item
+	 * @param expiryTimestamp
+	 *            - when the item expires
+	 */
+	void restore(long id, Object item, long expiryTimestamp) {
+		long lifetime = expiryTimestamp - System.currentTimeMillis();
+		if (lifetime > 0)
+			put(id, item, Math.min(lifetime, this.lifetime));
+	}
+
+	/**
+	 * Removes the items that expired. Called periodically by the sweeper of
+	 * the cache owning this region.
+	 *
+	 * @param now
+	 *            - the current time in milliseconds
+	 */
+	void sweep(long now) {
+		for (CacheEntry entry : expiryWheel.advance(now)) {
+			if (removeIfSame(entry)) {
+				policy.onRemove(entry);
+				stats.recordRemoval(entry);
+				reclaimedCount.increment();
+			}
+		}
+	}
+
+	private CacheEntry lookup(long id) {
+		CacheEntry entry;
+
+		lock.readLock().lock();
+		try {
+			entry = store.get(id);
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		OffHeapTier tier = offHeapTier;
+
+		if (entry == null && tier != null) {
+			CacheEntry promoted = tier.promote(new TierKey(name, id));
+			if (promoted != null)
+				return put(id, promoted.getItem(), promoted.getExpiryTimestamp() - System.currentTimeMillis());
+		}
+
+		if (entry == null)
+			return null;
+
+		if (entry.getExpiryTimestamp() < System.currentTimeMillis()) {
+			if (removeIfSame(entry))
+				retire(entry);
+			return null;
+		}
+
+		policy.onAccess(entry);
+		return entry;
+	}
+
+	private void refreshIfStale(CacheEntry entry, Supplier<CompletableFuture<V>> itemLoader) {
+		long now = System.currentTimeMillis();
+
+		if (now < entry.refreshTimestamp || entry.getItem() instanceof NegativeItem)
+			return;
+
+		staleServeCount.increment();
+
+		if (now < entry.nextRefreshAttempt)
+			return;
+
+		// Postponed so that a failing refresh isn't retried on every read
+		entry.nextRefreshAttempt = now + REFRESH_RETRY_DELAY;
+		refreshCount.increment();
+		load(entry.id, itemLoader, true);
+	}
+
+	private static <V> CompletableFuture<V> supply(CacheItemSupplier<V> itemSupplier, Executor executor) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+
+		executor.execute(() -> {
+			try {
+				future.complete(itemSupplier.get());
+			} catch (Throwable t) {
+				// Errors too, otherwise waiters of this load would block forever
+				future.completeExceptionally(t);
+			}
+		});
+
+		return future;
+	}
+
+	private CompletableFuture<V> load(long id, Supplier<CompletableFuture<V>> itemLoader, boolean refresh) {
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = loading.putIfAbsent(id, future);
+
+		if (inFlight != null)
+			return inFlight;
+
+		// The previous load may have finished between our cache miss and now
+		CacheEntry entry = refresh ? null : lookup(id);
+		if (entry != null) {
+			loading.remove(id, future);
+			complete(future, entry);
+			return future;
+		}
+
+		long start = System.nanoTime();
+		CompletableFuture<V> source;
+
+		try {
+			source = itemLoader.get();
+		} catch (Throwable t) {
+			source = new CompletableFuture<>();
+			source.completeExceptionally(t);
+		}
+
+		source.whenComplete((loaded, error) -> {
+			try {
+				if (error == null) {
+					stats.recordLoad(true, System.nanoTime() - start);
+					if (loaded != null)
+						write(id, loaded);
+					else if (!refresh && notFoundLifetime > 0)
+						put(id, new NegativeItem(NegativeResult.NOT_FOUND, null), notFoundLifetime);
+					future.complete(loaded);
+				} else {
+					Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+					stats.recordLoad(false, System.nanoTime() - start);
+
+					UltimateGDBot.logException(cause);
+					// A failed refresh keeps serving the previous item instead, and errors aren't cached
+					if (cause instanceof Exception && !refresh && errorLifetime > 0)
+						put(id, new NegativeItem(NegativeResult.ERROR, (Exception) cause), errorLifetime);
+
+					future.completeExceptionally(cause);
+				}
+			} finally {
+				loading.remove(id, future);
+			}
+		});
+
+		return future;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void complete(CompletableFuture<V> future, CacheEntry entry) {
+		if (!(entry.getItem() instanceof NegativeItem))
+			future.complete((V) entry.getItem());
+		else if (((NegativeItem) entry.getItem()).getCause() != null)
+			future.completeExceptionally(((NegativeItem) entry.getItem()).getCause());
+		else
+			future.complete(null);
+	}
+
+	private boolean removeIfSame(CacheEntry entry) {
+		lock.writeLock().lock();
+		try {
+			return store.remove(entry.id, entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void evict(List<CacheEntry> victims) {
+		for (CacheEntry victim : victims) {
+			expiryWheel.cancel(victim);
+			if (removeIfSame(victim)) {
+				stats.recordEviction(victim);
+
+				OffHeapTier tier = offHeapTier;
+				if (tier != null && !(victim.getItem() instanceof NegativeItem))
+					tier.demote(new TierKey(name, victim.id), victim.getItem(), victim.getExpiryTimestamp());
+			}
+		}
+	}
+
+	private void retire(CacheEntry entry) {
+		stats.recordRemoval(entry);
+		policy.onRemove(entry);
+		expiryWheel.cancel(entry);
+	}
+
+	/**
+	 * Key of the items of a region in the off-heap tier, which is shared by
+	 * all regions
+	 */
+	private static final class TierKey {
+
+		private final String region;
+		private final long id;
+
+		TierKey(String region, long id) {
+			this.region = region;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TierKey))
+				return false;
+			TierKey other = (TierKey) obj;
+			return id == other.id && region.equals(other.region);
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(id) * 31 + region.hashCode();
+		}
+	}
+}
@@ -0,0 +1,309 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the content of a cache to a binary file, so that it can be
+ * restored after a restart.
+ *
+ * The file starts with a magic number and a format version, followed by one
+ * record per entry: the key, the expiry timestamp, and the serialized item
+ * with its CRC32. Expired records are skipped without being deserialized. If
+ * anything in the file doesn't look right, the whole snapshot is ignored.
+ *
+ * Only items that implement {@link Serializable} are saved.
+ *
+ * @author Alex1304
+ */
+class CacheSnapshot {
+
+	private static final int MAGIC = 0x55474443;
+	private static final int VERSION = 1;
+
+	private static final byte END = 0;
+	private static final byte STRING_KEY = 1;
+	private static final byte REGION_KEY = 2;
+
+	private CacheSnapshot() {
+	}
+
+	/**
+	 * Writes the content of the cache to the given file. The file is replaced
+	 * atomically, so a reader never sees a partially written snapshot.
+	 *
+	 * @param cache
+	 *            - the cache to save
+	 * @param file
+	 *            - the file to write
+	 * @return how many entries were saved and skipped
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	static Summary save(Cache cache, Path file) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		long now = System.currentTimeMillis();
+		Summary summary = new Summary();
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(now);
+
+			for (CacheEntry entry : cache.entries()) {
+				byte[] payload = serialize(entry, now, summary);
+				if (payload == null)
+					continue;
+
+				out.writeByte(STRING_KEY);
+				writeString(out, (String) entry.key);
+				writePayload(out, entry, payload);
+				summary.saved++;
+			}
+
+			for (CacheRegion<?> region : cache.getRegions()) {
+				for (CacheEntry entry : region.entries()) {
+					byte[] payload = serialize(entry, now, summary);
+					if (payload == null)
+						continue;
+
+					out.writeByte(REGION_KEY);
+					writeString(out, region.getName());
+					out.writeLong(entry.id);
+					writePayload(out, entry, payload);
+					summary.saved++;
+				}
+			}
+
+			out.writeByte(END);
+		}
+
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return summary;
+	}
+
+	/**
+	 * Restores the entries of the given snapshot file that haven't expired
+	 * yet. Entries of regions that no longer exist are ignored.
+	 *
+	 * @param cache
+	 *            - the cache to fill
+	 * @param file
+	 *            - the file to read
+	 * @return the number of entries restored
+	 * @throws IOException
+	 *             if the file can't be read, or if it is corrupt or from
+	 *             another version
+	 */
+	static int load(Cache cache, Path file) throws IOException {
+		int count = 0;
+
+		for (Record record : read(file, System.currentTimeMillis())) {
+			if (record.key != null) {
+				cache.restore(record.key, record.item, record.expiryTimestamp);
+				count++;
+			} else {
+				CacheRegion<?> region = cache.getRegion(record.region);
+				if (region != null) {
+					region.restore(record.id, record.item, record.expiryTimestamp);
+					count++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Reads all the items of the given snapshot file, including the expired
+	 * ones
+	 *
+	 * @param file
+	 *            - the file to read
+	 * @return List&lt;Object&gt;
+	 * @throws IOException
+	 *             if the file can't be read, or if it is corrupt or from
+	 *             another version
+	 */
+	static List<Object> readItems(Path file) throws IOException {
+		List<Object> items = new ArrayList<>();
+
+		for (Record record : read(file, Long.MIN_VALUE))
+			items.add(record.item);
+
+		return items;
+	}
+
+	private static List<Record> read(Path file, long now) throws IOException {
+		List<Record> records = new ArrayList<>();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				throw new IOException("Not a cache snapshot, or unsupported version");
+
+			buffer.getLong();
+
+			for (byte type = buffer.get() ; type != END ; type = buffer.get()) {
+				Record record = new Record();
+
+				if (type == STRING_KEY) {
+					record.key = readString(buffer);
+				} else if (type == REGION_KEY) {
+					record.region = readString(buffer);
+					record.id = buffer.getLong();
+				} else
+					throw new IOException("Unknown record type " + type);
+
+				record.expiryTimestamp = buffer.getLong();
+				int length = buffer.getInt();
+				int crc = buffer.getInt();
+
+				if (length < 0 || length > buffer.remaining())
+					throw new IOException("Truncated record");
+
+				// Expired records are skipped without reading their content
+				if (record.expiryTimestamp <= now) {
+					buffer.position(buffer.position() + length);
+					continue;
+				}
+
+				byte[] payload = new byte[length];
+				buffer.get(payload);
+
+				CRC32 checksum = new CRC32();
+				checksum.update(payload);
+				if ((int) checksum.getValue() != crc)
+					throw new IOException("Checksum mismatch");
+
+				record.item = deserialize(payload);
+				records.add(record);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated snapshot", e);
+		}
+
+		return records;
+	}
+
+	private static byte[] serialize(CacheEntry entry, long now, Summary summary) throws IOException {
+		if (entry.getExpiryTimestamp() <= now || entry.getItem() instanceof NegativeItem)
+			return null;
+
+		byte[] payload = serialize(entry.getItem());
+		if (payload == null)
+			summary.skipped++;
+
+		return payload;
+	}
+
+	/**
+	 * Serializes an item, or returns null if it isn't serializable
+	 *
+	 * @param item
+	 *            - the item to serialize
+	 * @return byte[]
+	 * @throws IOException
+	 *             if serialization fails for another reason
+	 */
+	static byte[] serialize(Object item) throws IOException {
+		if (!(item instanceof Serializable))
+			return null;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(item);
+		} catch (NotSerializableException e) {
+			// Some part of the object graph isn't serializable
+			return null;
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deserializes an item serialized by {@link #serialize(Object)}
+	 *
+	 * @param payload
+	 *            - the serialized item
+	 * @return Object
+	 * @throws IOException
+	 *             if the item can't be deserialized
+	 */
+	static Object deserialize(byte[] payload) throws IOException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+			return in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Snapshot contains unknown classes", e);
+		}
+	}
+
+	private static void writePayload(DataOutputStream out, CacheEntry entry, byte[] payload) throws IOException {
+		CRC32 checksum = new CRC32();
+		checksum.update(payload);
+
+		out.writeLong(entry.getExpiryTimestamp());
+		out.writeInt(payload.length);
+		out.writeInt((int) checksum.getValue());
+		out.write(payload);
+	}
+
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) throws IOException {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining())
+			throw new IOException("Truncated record");
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Counts of a snapshot save
+	 */
+	static class Summary {
+		/**
+		 * The number of entries written in the snapshot
+		 */
+		int saved;
+		/**
+		 * The number of live entries left out because they can't be serialized
+		 */
+		int skipped;
+	}
+
+	private static class Record {
+		String key;
+		String region;
+		long id;
+		long expiryTimestamp;
+		Object item;
+	}
+}
@@ -0,0 +1,102 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.alex1304.ultimategdbot.utils.LatencyHistogram;
+
+/**
+ * Records the activity of one namespace of the cache. All counters are
+ * striped, so recording doesn't add contention to the read path.
+ *
+ * @author Alex1304
+ */
+class CacheStats {
+
+	private final String name;
+	private final LongAdder hits;
+	private final LongAdder negativeHits;
+	private final LongAdder misses;
+	private final LongAdder loadSuccesses;
+	private final LongAdder loadFailures;
+	private final LongAdder evictions;
+	private final LongAdder entries;
+	private final LongAdder weight;
+	private final LatencyHistogram loadTimes;
+
+	/**
+	 * @param name
+	 *            - the name of the namespace
+	 */
+	CacheStats(String name) {
+		this.name = name;
+		this.hits = new LongAdder();
+		this.negativeHits = new LongAdder();
+		this.misses = new LongAdder();
+		this.loadSuccesses = new LongAdder();
+		this.loadFailures = new LongAdder();
+		this.evictions = new LongAdder();
+		this.entries = new LongAdder();
+		this.weight = new LongAdder();
+		this.loadTimes = new LatencyHistogram();
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Records the outcome of a read
+	 *
+	 * @param entry
+	 *            - the entry found, or null if it was a miss
+	 */
+	void recordRead(CacheEntry entry) {
+		if (entry == null)
+			misses.increment();
+		else if (entry.getItem() instanceof NegativeItem)
+			negativeHits.increment();
+		else
+			hits.increment();
+	}
+
+	void recordLoad(boolean success, long nanos) {
+		(success ? loadSuccesses : loadFailures).increment();
+		loadTimes.record(nanos);
+	}
+
+	void recordInsert(CacheEntry entry) {
+		entries.increment();
+		weight.add(entry.getWeight());
+	}
+
+	void recordRemoval(CacheEntry entry) {
+		entries.decrement();
+		weight.add(-entry.getWeight());
+	}
+
+	void recordEviction(CacheEntry entry) {
+		recordRemoval(entry);
+		evictions.increment();
+	}
+
+	void recordClear() {
+		entries.reset();
+		weight.reset();
+	}
+
+	long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Takes a snapshot of the current values
+	 *
+	 * @return CacheStatsSnapshot
+	 */
+	CacheStatsSnapshot snapshot() {
+		return new CacheStatsSnapshot(name, hits.sum(), negativeHits.sum(), misses.sum(), loadSuccesses.sum(),
+				loadFailures.sum(), loadTimes.getMeanMillis(), loadTimes.getPercentileMillis(50),
+				loadTimes.getPercentileMillis(95), loadTimes.getPercentileMillis(99), Math.max(0, entries.sum()),
+				Math.max(0, weight.sum()), evictions.sum());
+	}
+}
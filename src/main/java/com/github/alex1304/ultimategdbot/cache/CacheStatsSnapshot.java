@@ -0,0 +1,170 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+/**
+ * Values of the statistics of one namespace of the cache, taken at a given
+ * time
+ *
+ * @author Alex1304
+ */
+public class CacheStatsSnapshot {
+
+	private String namespace;
+	private long hits;
+	private long negativeHits;
+	private long misses;
+	private long loadSuccesses;
+	private long loadFailures;
+	private double meanLoadMillis;
+	private double p50LoadMillis;
+	private double p95LoadMillis;
+	private double p99LoadMillis;
+	private long size;
+	private long weightedSize;
+	private long evictions;
+
+	public CacheStatsSnapshot(String namespace, long hits, long negativeHits, long misses, long loadSuccesses,
+			long loadFailures, double meanLoadMillis, double p50LoadMillis, double p95LoadMillis,
+			double p99LoadMillis, long size, long weightedSize, long evictions) {
+		this.namespace = namespace;
+		this.hits = hits;
+		this.negativeHits = negativeHits;
+		this.misses = misses;
+		this.loadSuccesses = loadSuccesses;
+		this.loadFailures = loadFailures;
+		this.meanLoadMillis = meanLoadMillis;
+		this.p50LoadMillis = p50LoadMillis;
+		this.p95LoadMillis = p95LoadMillis;
+		this.p99LoadMillis = p99LoadMillis;
+		this.size = size;
+		this.weightedSize = weightedSize;
+		this.evictions = evictions;
+	}
+
+	/**
+	 * Gets the namespace
+	 *
+	 * @return String
+	 */
+	public String getNamespace() {
+		return namespace;
+	}
+
+	/**
+	 * Gets the number of reads that found an item
+	 *
+	 * @return long
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of reads that found a remembered failure
+	 *
+	 * @return long
+	 */
+	public long getNegativeHits() {
+		return negativeHits;
+	}
+
+	/**
+	 * Gets the number of reads that found nothing
+	 *
+	 * @return long
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the ratio of reads that were answered by the cache, remembered
+	 * failures included
+	 *
+	 * @return double
+	 */
+	public double getHitRatio() {
+		long total = hits + negativeHits + misses;
+		return total == 0 ? 0 : (hits + negativeHits) / (double) total;
+	}
+
+	/**
+	 * Gets the number of loads that succeeded
+	 *
+	 * @return long
+	 */
+	public long getLoadSuccesses() {
+		return loadSuccesses;
+	}
+
+	/**
+	 * Gets the number of loads that threw an exception
+	 *
+	 * @return long
+	 */
+	public long getLoadFailures() {
+		return loadFailures;
+	}
+
+	/**
+	 * Gets the average load time, in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getMeanLoadMillis() {
+		return meanLoadMillis;
+	}
+
+	/**
+	 * Gets the median load time, in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getP50LoadMillis() {
+		return p50LoadMillis;
+	}
+
+	/**
+	 * Gets the 95th percentile of load times, in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getP95LoadMillis() {
+		return p95LoadMillis;
+	}
+
+	/**
+	 * Gets the 99th percentile of load times, in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getP99LoadMillis() {
+		return p99LoadMillis;
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return long
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the estimated memory usage of the entries, in bytes
+	 *
+	 * @return long
+	 */
+	public long getWeightedSize() {
+		return weightedSize;
+	}
+
+	/**
+	 * Gets the number of entries evicted because the cache was full
+	 *
+	 * @return long
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+}
@@ -0,0 +1,20 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+/**
+ * Estimates how many bytes an item takes in memory, so that the cache can
+ * enforce a memory budget
+ *
+ * @author Alex1304
+ */
+@FunctionalInterface
+public interface CacheWeigher {
+
+	/**
+	 * Gives an estimation of the size of the item in bytes
+	 * 
+	 * @param item
+	 *            - the item to weigh
+	 * @return long
+	 */
+	long weigh(Object item);
+}
@@ -0,0 +1,44 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.github.alex1304.jdash.component.GDLevelPreview;
+
+/**
+ * Finds the GD components a cached item was built from, so that the item can
+ * be updated or dropped when one of them changes. Only levels contained in
+ * lists (search results) are tracked, single levels and users are stored in
+ * regions where they can be reached by ID directly.
+ *
+ * @author Alex1304
+ */
+class GDComponentDependencies {
+
+	static final long[] NONE = new long[0];
+
+	private GDComponentDependencies() {
+	}
+
+	/**
+	 * Gets the IDs of the levels contained in the given item
+	 *
+	 * @param item
+	 *            - the cached item
+	 * @return long[], empty if the item doesn't contain any level
+	 */
+	static long[] of(Object item) {
+		if (!(item instanceof Collection))
+			return NONE;
+
+		Collection<?> c = (Collection<?>) item;
+		long[] ids = new long[c.size()];
+		int count = 0;
+
+		for (Object o : c)
+			if (o instanceof GDLevelPreview)
+				ids[count++] = ((GDLevelPreview) o).getId();
+
+		return count == 0 ? NONE : Arrays.copyOf(ids, count);
+	}
+}
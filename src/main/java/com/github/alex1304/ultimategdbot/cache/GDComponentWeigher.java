@@ -0,0 +1,76 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.Collection;
+
+import com.github.alex1304.jdash.component.GDLevel;
+import com.github.alex1304.jdash.component.GDLevelPreview;
+import com.github.alex1304.jdash.component.GDSong;
+import com.github.alex1304.jdash.component.GDUser;
+
+/**
+ * Weighs GD components by looking at the fields that actually make them
+ * heavy (descriptions, names, song metadata...). The estimations don't need
+ * to be exact, they only need to be consistent with each other.
+ *
+ * @author Alex1304
+ */
+public class GDComponentWeigher implements CacheWeigher {
+	
+	private static final long OBJECT_OVERHEAD = 16;
+	private static final long REFERENCE_SIZE = 8;
+	private static final long DEFAULT_WEIGHT = 256;
+	private static final long LEVEL_BASE_WEIGHT = 200;
+	private static final long SONG_BASE_WEIGHT = 120;
+	private static final long USER_BASE_WEIGHT = 160;
+
+	@Override
+	public long weigh(Object item) {
+		if (item == null)
+			return 0;
+		
+		if (item instanceof String)
+			return weighString((String) item);
+		
+		if (item instanceof Collection) {
+			Collection<?> c = (Collection<?>) item;
+			long weight = OBJECT_OVERHEAD * 2 + REFERENCE_SIZE * c.size();
+			for (Object o : c)
+				weight += weigh(o);
+			return weight;
+		}
+		
+		if (item instanceof GDLevelPreview) {
+			GDLevelPreview lp = (GDLevelPreview) item;
+			long weight = LEVEL_BASE_WEIGHT + weighString(lp.getName()) + weighString(lp.getDescription())
+					+ weighString(lp.getCreatorName()) + weighSong(lp.getSong());
+			
+			if (item instanceof GDLevel) {
+				GDLevel lvl = (GDLevel) item;
+				weight += weighString(lvl.getUploadTimestamp()) + weighString(lvl.getLastUpdatedTimestamp());
+			}
+			
+			return weight;
+		}
+		
+		if (item instanceof GDUser) {
+			GDUser user = (GDUser) item;
+			return USER_BASE_WEIGHT + weighString(user.getName()) + weighString(user.getYoutube())
+					+ weighString(user.getTwitter()) + weighString(user.getTwitch());
+		}
+		
+		return DEFAULT_WEIGHT;
+	}
+	
+	private static long weighSong(GDSong song) {
+		if (song == null)
+			return 0;
+		
+		return SONG_BASE_WEIGHT + weighString(String.valueOf(song.getSongTitle()))
+				+ weighString(String.valueOf(song.getSongAuthorName()))
+				+ weighString(String.valueOf(song.getDownloadURL()));
+	}
+	
+	private static long weighString(String str) {
+		return str == null ? 0 : OBJECT_OVERHEAD * 3 + 2L * str.length();
+	}
+}
@@ -0,0 +1,206 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash map from primitive long keys to cache entries, using open addressing
+ * with linear probing. Keys are stored unboxed, so lookups don't allocate.
+ *
+ * This class is not thread-safe, the caller is responsible for locking.
+ *
+ * @author Alex1304
+ */
+class LongEntryMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private CacheEntry[] values;
+	private int mask;
+	private int size;
+
+	LongEntryMap() {
+		allocate(MIN_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.values = new CacheEntry[capacity];
+		this.mask = capacity - 1;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * Gets the entry associated to the given key, or null if there is none
+	 *
+	 * @param key
+	 *            - the key
+	 * @return CacheEntry
+	 */
+	CacheEntry get(long key) {
+		for (int i = slot(key) ; values[i] != null ; i = (i + 1) & mask)
+			if (keys[i] == key)
+				return values[i];
+
+		return null;
+	}
+
+	/**
+	 * Associates an entry to the given key and returns the entry previously
+	 * associated to it, or null if there was none
+	 *
+	 * @param key
+	 *            - the key
+	 * @param value
+	 *            - the entry, must not be null
+	 * @return CacheEntry
+	 */
+	CacheEntry put(long key, CacheEntry value) {
+		int i = slot(key);
+
+		for (; values[i] != null ; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				CacheEntry old = values[i];
+				values[i] = value;
+				return old;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+
+		// Keep the load factor under 1/2 so probe sequences stay short
+		if (++size > values.length >> 1)
+			resize(values.length << 1);
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry associated to the given key, and returns it
+	 *
+	 * @param key
+	 *            - the key
+	 * @return CacheEntry
+	 */
+	CacheEntry remove(long key) {
+		for (int i = slot(key) ; values[i] != null ; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				CacheEntry old = values[i];
+				deleteAt(i);
+				return old;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry associated to the given key only if it is the given
+	 * entry
+	 *
+	 * @param key
+	 *            - the key
+	 * @param value
+	 *            - the expected entry
+	 * @return boolean
+	 */
+	boolean remove(long key, CacheEntry value) {
+		for (int i = slot(key) ; values[i] != null ; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				if (values[i] != value)
+					return false;
+				deleteAt(i);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	void clear() {
+		if (values.length > MIN_CAPACITY)
+			allocate(MIN_CAPACITY);
+		else
+			Arrays.fill(values, null);
+		this.size = 0;
+	}
+
+	/**
+	 * Gets all the entries
+	 *
+	 * @return List&lt;CacheEntry&gt;
+	 */
+	List<CacheEntry> values() {
+		List<CacheEntry> result = new ArrayList<>(size);
+
+		for (CacheEntry value : values)
+			if (value != null)
+				result.add(value);
+
+		return result;
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return int
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Backward shift deletion: the following entries of the probe sequence are
+	 * moved up so that lookups never need tombstones.
+	 */
+	private void deleteAt(int i) {
+		int j = i;
+
+		while (true) {
+			j = (j + 1) & mask;
+			if (values[j] == null)
+				break;
+
+			int home = slot(keys[j]);
+			boolean staysInPlace = i < j ? (i < home && home <= j) : (i < home || home <= j);
+
+			if (!staysInPlace) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				i = j;
+			}
+		}
+
+		values[i] = null;
+		size--;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		CacheEntry[] oldValues = values;
+
+		allocate(capacity);
+
+		for (int i = 0 ; i < oldValues.length ; i++) {
+			if (oldValues[i] == null)
+				continue;
+
+			int j = slot(oldKeys[i]);
+			while (values[j] != null)
+				j = (j + 1) & mask;
+
+			keys[j] = oldKeys[i];
+			values[j] = oldValues[i];
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+/**
+ * Item stored in place of a real one when its lookup failed
+ *
+ * @author Alex1304
+ */
+class NegativeItem {
+
+	private final NegativeResult result;
+	private final Exception cause;
+
+	/**
+	 * @param result
+	 *            - the kind of failure
+	 * @param cause
+	 *            - the exception thrown by the supplier, or null if it
+	 *            returned nothing
+	 */
+	NegativeItem(NegativeResult result, Exception cause) {
+		this.result = result;
+		this.cause = cause;
+	}
+
+	/**
+	 * Gets the kind of failure
+	 *
+	 * @return NegativeResult
+	 */
+	NegativeResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Gets the exception thrown by the supplier, or null if it returned
+	 * nothing
+	 *
+	 * @return Exception
+	 */
+	Exception getCause() {
+		return cause;
+	}
+}
@@ -0,0 +1,19 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+/**
+ * Kinds of failed lookups that the cache remembers for a short time, so that
+ * they aren't retried against the Geometry Dash servers on every attempt.
+ *
+ * @author Alex1304
+ */
+public enum NegativeResult {
+	/**
+	 * The supplier returned nothing, the item doesn't exist
+	 */
+	NOT_FOUND,
+	/**
+	 * The supplier threw an exception, for example because the servers are
+	 * unavailable
+	 */
+	ERROR
+}
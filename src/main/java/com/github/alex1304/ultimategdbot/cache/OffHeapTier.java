@@ -0,0 +1,374 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Second cache tier that keeps serialized items outside of the Java heap, in
+ * direct byte buffers. Entries evicted from the heap land here, and move back
+ * to the heap when they are read again. This keeps large, rarely read items
+ * (search pages, full levels) cached without making the heap and the garbage
+ * collector deal with their object graphs.
+ *
+ * Memory is allocated in slabs of 1 MB, each split into chunks of one size
+ * class (powers of two from 512 bytes to 1 MB). An item is stored in the
+ * smallest chunk that fits it. Each size class has its own LRU list: when
+ * there is no free chunk left in a class and the byte budget doesn't allow a
+ * new slab, the least recently used item of that class is dropped.
+ *
+ * Slabs are never handed over from one size class to another, even when all
+ * their chunks are free. Once the budget is fully allocated, the share of
+ * memory of each class is fixed by the items that came first, and a class that
+ * got no slab rejects its items. If the sizes of the cached items change a lot
+ * over time, items of the classes left without room are dropped more often,
+ * and only a restart of the bot gives the memory back to the classes that need
+ * it.
+ *
+ * @author Alex1304
+ */
+public class OffHeapTier {
+
+	private static final int MIN_CHUNK_BITS = 9;
+	private static final int SLAB_BITS = 20;
+	private static final int SLAB_SIZE = 1 << SLAB_BITS;
+	private static final int CLASS_COUNT = SLAB_BITS - MIN_CHUNK_BITS + 1;
+
+	private final ReentrantLock lock;
+	private final long maxBytes;
+	private final Map<Object, Slot> index;
+	private final SizeClass[] classes;
+	private long allocatedBytes;
+	private long usedBytes;
+	private final LongAdder demotions;
+	private final LongAdder promotions;
+	private final LongAdder evictions;
+	private final LongAdder rejections;
+
+	/**
+	 * @param maxBytes
+	 *            - the maximum amount of direct memory the tier can allocate
+	 */
+	OffHeapTier(long maxBytes) {
+		if (maxBytes < SLAB_SIZE)
+			throw new IllegalArgumentException("Off-heap tier must hold at least one slab of " + SLAB_SIZE + " bytes");
+
+		this.lock = new ReentrantLock();
+		this.maxBytes = maxBytes;
+		this.index = new HashMap<>();
+		this.classes = new SizeClass[CLASS_COUNT];
+		this.demotions = new LongAdder();
+		this.promotions = new LongAdder();
+		this.evictions = new LongAdder();
+		this.rejections = new LongAdder();
+
+		for (int i = 0 ; i < CLASS_COUNT ; i++)
+			classes[i] = new SizeClass(1 << (MIN_CHUNK_BITS + i));
+	}
+
+	/**
+	 * Stores an item evicted from the heap tier. Items that can't be
+	 * serialized, or that are too big, are dropped.
+	 *
+	 * @param key
+	 *            - the key of the item
+	 * @param item
+	 *            - the item
+	 * @param expiryTimestamp
+	 *            - when the item expires
+	 */
+	void demote(Object key, Object item, long expiryTimestamp) {
+		byte[] payload;
+
+		try {
+			payload = CacheSnapshot.serialize(item);
+		} catch (IOException e) {
+			payload = null;
+		}
+
+		if (payload == null || payload.length > SLAB_SIZE) {
+			rejections.increment();
+			return;
+		}
+
+		SizeClass sizeClass = classes[classOf(payload.length)];
+
+		lock.lock();
+		try {
+			free(index.remove(key));
+
+			int chunk = allocate(sizeClass);
+			if (chunk < 0) {
+				rejections.increment();
+				return;
+			}
+
+			ByteBuffer buffer = sizeClass.chunk(chunk);
+			buffer.put(payload);
+
+			Slot slot = new Slot(key, sizeClass, chunk, payload.length, expiryTimestamp);
+			index.put(key, slot);
+			sizeClass.lru.put(key, slot);
+			usedBytes += sizeClass.chunkSize;
+			demotions.increment();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes an item from this tier and returns it as a cache entry, or
+	 * returns null if the item isn't here or has expired.
+	 *
+	 * @param key
+	 *            - the key of the item
+	 * @return CacheEntry
+	 */
+	CacheEntry promote(Object key) {
+		byte[] payload;
+		long expiryTimestamp;
+
+		lock.lock();
+		try {
+			if (index.isEmpty())
+				return null;
+
+			Slot slot = index.remove(key);
+			if (slot == null)
+				return null;
+
+			expiryTimestamp = slot.expiryTimestamp;
+			payload = null;
+
+			if (expiryTimestamp > System.currentTimeMillis()) {
+				payload = new byte[slot.length];
+				slot.sizeClass.chunk(slot.chunk).get(payload);
+			}
+
+			free(slot);
+		} finally {
+			lock.unlock();
+		}
+
+		if (payload == null)
+			return null;
+
+		try {
+			Object item = CacheSnapshot.deserialize(payload);
+			promotions.increment();
+			return new CacheEntry(item, expiryTimestamp);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Removes an item from this tier, if it is here
+	 *
+	 * @param key
+	 *            - the key of the item
+	 */
+	void remove(Object key) {
+		lock.lock();
+		try {
+			if (!index.isEmpty())
+				free(index.remove(key));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all items from this tier. The slabs stay allocated for reuse.
+	 */
+	void clear() {
+		lock.lock();
+		try {
+			for (Slot slot : index.values().toArray(new Slot[0]))
+				free(slot);
+			index.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of items in this tier
+	 *
+	 * @return int
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return index.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the amount of direct memory allocated for slabs, in bytes
+	 *
+	 * @return long
+	 */
+	public long allocatedBytes() {
+		lock.lock();
+		try {
+			return allocatedBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the amount of slab memory holding items, in bytes
+	 *
+	 * @return long
+	 */
+	public long usedBytes() {
+		lock.lock();
+		try {
+			return usedBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of items moved from the heap to this tier
+	 *
+	 * @return long
+	 */
+	public long demotionCount() {
+		return demotions.sum();
+	}
+
+	/**
+	 * Gets the number of items moved back from this tier to the heap
+	 *
+	 * @return long
+	 */
+	public long promotionCount() {
+		return promotions.sum();
+	}
+
+	/**
+	 * Gets the number of items dropped from this tier to make room for others
+	 *
+	 * @return long
+	 */
+	public long evictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Gets the number of items that couldn't enter this tier, because they
+	 * weren't serializable or were too big
+	 *
+	 * @return long
+	 */
+	public long rejectionCount() {
+		return rejections.sum();
+	}
+
+	private static int classOf(int length) {
+		int bits = 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1);
+		return Math.max(0, bits - MIN_CHUNK_BITS);
+	}
+
+	/**
+	 * Finds a free chunk in the given class, allocating a new slab or evicting
+	 * the least recently used item of the class if needed. Returns -1 if the
+	 * class has nothing to evict and the budget is exhausted: free slabs of
+	 * other classes aren't taken over.
+	 */
+	private int allocate(SizeClass sizeClass) {
+		if (sizeClass.freeChunks.isEmpty()) {
+			if (allocatedBytes + SLAB_SIZE <= maxBytes) {
+				sizeClass.addSlab();
+				allocatedBytes += SLAB_SIZE;
+			} else {
+				Iterator<Slot> eldest = sizeClass.lru.values().iterator();
+				if (!eldest.hasNext())
+					return -1;
+
+				Slot victim = eldest.next();
+				index.remove(victim.key);
+				free(victim);
+				evictions.increment();
+			}
+		}
+
+		return sizeClass.freeChunks.pop();
+	}
+
+	private void free(Slot slot) {
+		if (slot == null)
+			return;
+
+		slot.sizeClass.lru.remove(slot.key);
+		slot.sizeClass.freeChunks.push(slot.chunk);
+		usedBytes -= slot.sizeClass.chunkSize;
+	}
+
+	private static class SizeClass {
+
+		final int chunkSize;
+		final int chunksPerSlab;
+		final ArrayDeque<Integer> freeChunks;
+		final LinkedHashMap<Object, Slot> lru;
+		ByteBuffer[] slabArray;
+
+		SizeClass(int chunkSize) {
+			this.chunkSize = chunkSize;
+			this.chunksPerSlab = SLAB_SIZE / chunkSize;
+			this.freeChunks = new ArrayDeque<>();
+			this.lru = new LinkedHashMap<>(16, 0.75f, true);
+			this.slabArray = new ByteBuffer[0];
+		}
+
+		void addSlab() {
+			int firstChunk = slabArray.length * chunksPerSlab;
+			slabArray = Arrays.copyOf(slabArray, slabArray.length + 1);
+			slabArray[slabArray.length - 1] = ByteBuffer.allocateDirect(SLAB_SIZE);
+
+			for (int i = chunksPerSlab - 1 ; i >= 0 ; i--)
+				freeChunks.push(firstChunk + i);
+		}
+
+		/**
+		 * Gets a buffer covering the given chunk, positioned at its start
+		 */
+		ByteBuffer chunk(int chunk) {
+			ByteBuffer buffer = slabArray[chunk / chunksPerSlab].duplicate();
+			int offset = (chunk % chunksPerSlab) * chunkSize;
+			buffer.limit(offset + chunkSize);
+			buffer.position(offset);
+			return buffer;
+		}
+	}
+
+	private static class Slot {
+
+		final Object key;
+		final SizeClass sizeClass;
+		final int chunk;
+		final int length;
+		final long expiryTimestamp;
+
+		Slot(Object key, SizeClass sizeClass, int chunk, int length, long expiryTimestamp) {
+			this.key = key;
+			this.sizeClass = sizeClass;
+			this.chunk = chunk;
+			this.length = length;
+			this.expiryTimestamp = expiryTimestamp;
+		}
+	}
+}
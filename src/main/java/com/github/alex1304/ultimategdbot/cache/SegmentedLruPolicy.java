@@ -0,0 +1,272 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Segmented LRU eviction policy. New entries are admitted in a probation
+ * segment, and only move to the protected segment once they are read again.
+ * This way a burst of keys that are requested only once (searches, typos...)
+ * can't flush out the entries that are actually popular. Victims are taken from
+ * the least recently used end of the probation segment first.
+ *
+ * The entries are linked directly to each other, so the policy doesn't allocate
+ * anything on reads.
+ *
+ * @author Alex1304
+ */
+class SegmentedLruPolicy {
+
+	static final int DETACHED = 0;
+	static final int PROBATION = 1;
+	static final int PROTECTED = 2;
+
+	private static final double PROTECTED_RATIO = 0.8;
+
+	private final ReentrantLock lock;
+	private final CacheEntry probation;
+	private final CacheEntry protectedSegment;
+	private final int maxEntries;
+	private long maxWeight;
+	private int size;
+	private int protectedSize;
+	private long weight;
+
+	/**
+	 * @param maxEntries
+	 *            - the maximum number of entries the policy may hold
+	 * @param maxWeight
+	 *            - the maximum total weight (in bytes) of the entries
+	 */
+	SegmentedLruPolicy(int maxEntries, long maxWeight) {
+		this.lock = new ReentrantLock();
+		this.probation = sentinel();
+		this.protectedSegment = sentinel();
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+	}
+
+	private static CacheEntry sentinel() {
+		CacheEntry sentinel = new CacheEntry(null, Long.MAX_VALUE);
+		sentinel.prev = sentinel;
+		sentinel.next = sentinel;
+		return sentinel;
+	}
+
+	/**
+	 * Records a read of the given entry. Recency updates are best effort: if
+	 * the lock is busy the update is dropped instead of blocking the reader.
+	 *
+	 * @param entry
+	 *            - the entry that was read
+	 */
+	void onAccess(CacheEntry entry) {
+		if (!lock.tryLock())
+			return;
+
+		try {
+			if (entry.segment == PROBATION) {
+				unlink(entry);
+				linkLast(protectedSegment, entry);
+				entry.segment = PROTECTED;
+				protectedSize++;
+
+				while (protectedSize > maxEntries * PROTECTED_RATIO) {
+					CacheEntry demoted = protectedSegment.next;
+					unlink(demoted);
+					linkLast(probation, demoted);
+					demoted.segment = PROBATION;
+					protectedSize--;
+				}
+			} else if (entry.segment == PROTECTED) {
+				unlink(entry);
+				linkLast(protectedSegment, entry);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Admits a new entry and returns the entries that must be evicted to stay
+	 * within bounds. The new entry itself may be part of the victims if it
+	 * alone exceeds the weight budget.
+	 *
+	 * @param entry
+	 *            - the entry that was written
+	 * @return List&lt;CacheEntry&gt;
+	 */
+	List<CacheEntry> onInsert(CacheEntry entry) {
+		lock.lock();
+
+		try {
+			if (entry.retired || entry.segment != DETACHED)
+				return Collections.emptyList();
+
+			linkLast(probation, entry);
+			entry.segment = PROBATION;
+			size++;
+			weight += entry.getWeight();
+
+			return evictOverflow();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Changes the maximum total weight of the entries, and returns the entries
+	 * that must be evicted to fit in the new budget
+	 *
+	 * @param maxWeight
+	 *            - the new maximum total weight (in bytes)
+	 * @return List&lt;CacheEntry&gt;
+	 */
+	List<CacheEntry> setMaxWeight(long maxWeight) {
+		lock.lock();
+
+		try {
+			this.maxWeight = maxWeight;
+			return evictOverflow();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private List<CacheEntry> evictOverflow() {
+		List<CacheEntry> victims = null;
+
+		while (size > maxEntries || weight > maxWeight) {
+			CacheEntry victim = probation.next != probation ? probation.next : protectedSegment.next;
+			if (victim == protectedSegment)
+				break;
+
+			detach(victim);
+			victim.retired = true;
+
+			if (victims == null)
+				victims = new ArrayList<>();
+			victims.add(victim);
+		}
+
+		return victims == null ? Collections.emptyList() : victims;
+	}
+
+	/**
+	 * Forgets an entry that was removed from the store by other means than
+	 * eviction (overwritten, expired...)
+	 *
+	 * @param entry
+	 *            - the removed entry
+	 */
+	void onRemove(CacheEntry entry) {
+		lock.lock();
+
+		try {
+			entry.retired = true;
+			if (entry.segment != DETACHED)
+				detach(entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forgets all entries
+	 */
+	void clear() {
+		lock.lock();
+
+		try {
+			for (CacheEntry head : new CacheEntry[] { probation, protectedSegment }) {
+				CacheEntry e = head.next;
+				while (e != head) {
+					CacheEntry next = e.next;
+					e.prev = null;
+					e.next = null;
+					e.segment = DETACHED;
+					e.retired = true;
+					e = next;
+				}
+				head.prev = head;
+				head.next = head;
+			}
+
+			this.size = 0;
+			this.protectedSize = 0;
+			this.weight = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of entries currently held
+	 *
+	 * @return int
+	 */
+	int size() {
+		lock.lock();
+
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the maximum total weight of the entries
+	 *
+	 * @return long
+	 */
+	long maxWeight() {
+		lock.lock();
+
+		try {
+			return maxWeight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the total weight of the entries currently held
+	 *
+	 * @return long
+	 */
+	long weightedSize() {
+		lock.lock();
+
+		try {
+			return weight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void detach(CacheEntry entry) {
+		unlink(entry);
+		if (entry.segment == PROTECTED)
+			protectedSize--;
+		entry.segment = DETACHED;
+		size--;
+		weight -= entry.getWeight();
+	}
+
+	private static void linkLast(CacheEntry head, CacheEntry entry) {
+		entry.prev = head.prev;
+		entry.next = head;
+		head.prev.next = entry;
+		head.prev = entry;
+	}
+
+	private static void unlink(CacheEntry entry) {
+		entry.prev.next = entry.next;
+		entry.next.prev = entry.prev;
+		entry.prev = null;
+		entry.next = null;
+	}
+}
@@ -0,0 +1,242 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel that sorts cache entries by expiry timestamp. The
+ * inner wheel has one slot per tick and holds the entries expiring during the
+ * current revolution, so advancing the wheel only visits the slots that
+ * elapsed instead of the whole cache. Entries expiring in a later revolution
+ * wait in the outer wheel, which has one slot per revolution, and are moved
+ * to the inner wheel when their revolution starts. An entry is thus visited
+ * at most twice before it expires, whatever its lifetime compared to the
+ * length of a revolution. Only entries more than {@code wheelSize}
+ * revolutions away share an outer slot with sooner ones, and are skipped
+ * until their turn comes.
+ *
+ * Entries are linked directly into the slots, which makes scheduling and
+ * cancelling them constant time.
+ *
+ * @author Alex1304
+ */
+class TimingWheel {
+
+	private final ReentrantLock lock;
+	private final CacheEntry[] slots;
+	private final CacheEntry[] overflow;
+	private final long tickMillis;
+	private final int mask;
+	private final int shift;
+	private long currentTick;
+
+	/**
+	 * @param tickMillis
+	 *            - the duration of one tick, in milliseconds
+	 * @param wheelSize
+	 *            - the number of slots, must be a power of two
+	 */
+	TimingWheel(long tickMillis, int wheelSize) {
+		if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1)
+			throw new IllegalArgumentException("Invalid timing wheel parameters");
+
+		this.lock = new ReentrantLock();
+		this.slots = new CacheEntry[wheelSize];
+		this.overflow = new CacheEntry[wheelSize];
+		this.tickMillis = tickMillis;
+		this.mask = wheelSize - 1;
+		this.shift = Integer.numberOfTrailingZeros(wheelSize);
+		this.currentTick = System.currentTimeMillis() / tickMillis;
+
+		for (int i = 0 ; i < wheelSize ; i++) {
+			slots[i] = sentinel();
+			overflow[i] = sentinel();
+		}
+	}
+
+	private static CacheEntry sentinel() {
+		CacheEntry sentinel = new CacheEntry(null, Long.MAX_VALUE);
+		sentinel.wheelPrev = sentinel;
+		sentinel.wheelNext = sentinel;
+		return sentinel;
+	}
+
+	/**
+	 * Gets the duration of one tick, in milliseconds
+	 *
+	 * @return long
+	 */
+	long getTickMillis() {
+		return tickMillis;
+	}
+
+	/**
+	 * Adds an entry to the slot matching its expiry timestamp
+	 *
+	 * @param entry
+	 *            - the entry to schedule
+	 */
+	void schedule(CacheEntry entry) {
+		lock.lock();
+
+		try {
+			if (entry.wheelNext == null)
+				insert(entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void insert(CacheEntry entry) {
+		// Entries that are already due go in the next slot to be visited
+		long tick = Math.max(entry.getExpiryTimestamp() / tickMillis, currentTick);
+		long revolution = tick >> shift;
+
+		if (revolution == currentTick >> shift)
+			link(slots[(int) (tick & mask)], entry);
+		else
+			link(overflow[(int) (revolution & mask)], entry);
+	}
+
+	/**
+	 * Removes an entry from the wheel, if it was scheduled
+	 *
+	 * @param entry
+	 *            - the entry to remove
+	 */
+	void cancel(CacheEntry entry) {
+		lock.lock();
+
+		try {
+			if (entry.wheelNext != null)
+				unlink(entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves the wheel forward to the given time, and returns the entries that
+	 * expired in the meantime. They are removed from the wheel.
+	 *
+	 * @param now
+	 *            - the current time in milliseconds
+	 * @return List&lt;CacheEntry&gt;
+	 */
+	List<CacheEntry> advance(long now) {
+		lock.lock();
+
+		try {
+			long nowTick = now / tickMillis;
+			if (nowTick <= currentTick)
+				return Collections.emptyList();
+
+			List<CacheEntry> expired = new ArrayList<>();
+
+			// Late by more than one revolution, some would be missed, so everything is sorted again
+			if (nowTick - currentTick > slots.length) {
+				List<CacheEntry> pending = new ArrayList<>();
+				drain(slots, pending);
+				drain(overflow, pending);
+				currentTick = nowTick;
+
+				for (CacheEntry e : pending) {
+					if (e.getExpiryTimestamp() / tickMillis < nowTick)
+						expired.add(e);
+					else
+						insert(e);
+				}
+
+				return expired;
+			}
+
+			for (long tick = currentTick ; tick < nowTick ; tick++) {
+				currentTick = tick;
+				if ((tick & mask) == 0)
+					cascade(tick >> shift);
+
+				CacheEntry head = slots[(int) (tick & mask)];
+				CacheEntry e = head.wheelNext;
+
+				while (e != head) {
+					CacheEntry next = e.wheelNext;
+					unlink(e);
+					expired.add(e);
+					e = next;
+				}
+			}
+
+			currentTick = nowTick;
+			return expired;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves the entries of the given revolution from the outer wheel to the
+	 * inner one, when that revolution starts
+	 */
+	private void cascade(long revolution) {
+		CacheEntry head = overflow[(int) (revolution & mask)];
+		CacheEntry e = head.wheelNext;
+
+		while (e != head) {
+			CacheEntry next = e.wheelNext;
+
+			// Entries more than one outer revolution away share the slot, they stay there
+			if (e.getExpiryTimestamp() / tickMillis >> shift <= revolution) {
+				unlink(e);
+				insert(e);
+			}
+
+			e = next;
+		}
+	}
+
+	/**
+	 * Removes all entries from the wheel
+	 */
+	void clear() {
+		lock.lock();
+
+		try {
+			drain(slots, null);
+			drain(overflow, null);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static void drain(CacheEntry[] wheel, List<CacheEntry> drained) {
+		for (CacheEntry head : wheel) {
+			CacheEntry e = head.wheelNext;
+			while (e != head) {
+				CacheEntry next = e.wheelNext;
+				e.wheelPrev = null;
+				e.wheelNext = null;
+				if (drained != null)
+					drained.add(e);
+				e = next;
+			}
+			head.wheelPrev = head;
+			head.wheelNext = head;
+		}
+	}
+
+	private static void link(CacheEntry head, CacheEntry entry) {
+		entry.wheelPrev = head.wheelPrev;
+		entry.wheelNext = head;
+		head.wheelPrev.wheelNext = entry;
+		head.wheelPrev = entry;
+	}
+
+	private static void unlink(CacheEntry entry) {
+		entry.wheelPrev.wheelNext = entry.wheelNext;
+		entry.wheelNext.wheelPrev = entry.wheelPrev;
+		entry.wheelPrev = null;
+		entry.wheelNext = null;
+	}
+}
@@ -8,6 +8,9 @@ import com.github.alex1304.ultimategdbot.dbentities.AwardedLevel;
 import com.github.alex1304.ultimategdbot.dbentities.GDMod;
 import com.github.alex1304.ultimategdbot.dbentities.GlobalSettings;
 import com.github.alex1304.ultimategdbot.dbentities.GuildSettings;
+import com.github.alex1304.ultimategdbot.dbentities.JournalDelivery;
+import com.github.alex1304.ultimategdbot.dbentities.JournalEntry;
+import com.github.alex1304.ultimategdbot.dbentities.ScanCheckpoint;
 import com.github.alex1304.ultimategdbot.dbentities.TimelyLevel;
 import com.github.alex1304.ultimategdbot.dbentities.UserSettings;
 
@@ -31,6 +34,9 @@ public class Database {
 		config.addClass(AwardedLevel.class);
 		config.addClass(TimelyLevel.class);
 		config.addClass(GDMod.class);
+		config.addClass(ScanCheckpoint.class);
+		config.addClass(JournalEntry.class);
+		config.addClass(JournalDelivery.class);
 		sessionFactory = config.buildSessionFactory();
 	}
 	
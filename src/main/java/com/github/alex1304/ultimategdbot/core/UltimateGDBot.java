@@ -1,5 +1,6 @@
 package com.github.alex1304.ultimategdbot.core;
 
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,10 +9,20 @@ import java.util.Properties;
 import java.util.stream.Collectors;
 
 import com.github.alex1304.jdash.api.GDHttpClient;
+import com.github.alex1304.jdash.component.GDLevel;
+import com.github.alex1304.jdash.component.GDUser;
 import com.github.alex1304.jdash.exceptions.GDAPIException;
 import com.github.alex1304.ultimategdbot.cache.Cache;
+import com.github.alex1304.ultimategdbot.cache.CacheRegion;
 import com.github.alex1304.ultimategdbot.dbentities.GlobalSettings;
 import com.github.alex1304.ultimategdbot.exceptions.ModuleUnavailableException;
+import com.github.alex1304.ultimategdbot.gateway.AdaptiveRateLimiter;
+import com.github.alex1304.ultimategdbot.gateway.CircuitBreaker;
+import com.github.alex1304.ultimategdbot.gateway.CircuitOpenException;
+import com.github.alex1304.ultimategdbot.gateway.GDGateway;
+import com.github.alex1304.ultimategdbot.gateway.GatewayHttpClient;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
+import com.github.alex1304.ultimategdbot.gateway.RetryPolicy;
 import com.github.alex1304.ultimategdbot.modules.Module;
 import com.github.alex1304.ultimategdbot.utils.BotUtils;
 import com.github.alex1304.ultimategdbot.utils.Emojis;
@@ -38,10 +49,13 @@ public class UltimateGDBot {
 	private IDiscordClient client;
 	private Properties props;
 	private Cache cache;
+	private CacheRegion<GDUser> gdUserCache;
+	private CacheRegion<GDLevel> gdLevelCache;
 	private GlobalSettings globals;
 	private Map<String, Module> modules;
 	private Map<String, Boolean> startedModules;
 	private GDHttpClient gdClient;
+	private GDGateway gdGateway;
 	private List<IGuild> emojiGuilds;
 	
 	/**
@@ -62,16 +76,56 @@ public class UltimateGDBot {
 		clientBuilder.withToken(props.getProperty("ultimategdbot.client.token"));
 		clientBuilder.withRecommendedShardCount();
 		this.client = clientBuilder.build();
-		this.cache = new Cache();
+		this.cache = new Cache(Integer.parseInt(props.getProperty("ultimategdbot.cache.max_entries")),
+				Long.parseLong(props.getProperty("ultimategdbot.cache.max_bytes")));
+		cache.setNotFoundLifetime(Long.parseLong(props.getProperty("ultimategdbot.cache.not_found_lifetime")));
+		cache.setErrorLifetime(Long.parseLong(props.getProperty("ultimategdbot.cache.error_lifetime")));
+		this.gdUserCache = cache.createRegion("gd.user",
+				Long.parseLong(props.getProperty("ultimategdbot.cache.gd_user.lifetime")),
+				Integer.parseInt(props.getProperty("ultimategdbot.cache.gd_user.max_entries")),
+				Long.parseLong(props.getProperty("ultimategdbot.cache.gd_user.max_bytes")));
+		gdUserCache.setRefreshAfter(Long.parseLong(props.getProperty("ultimategdbot.cache.gd_user.refresh_after")));
+		this.gdLevelCache = cache.createRegion("gd.level",
+				Long.parseLong(props.getProperty("ultimategdbot.cache.gd_level.lifetime")),
+				Integer.parseInt(props.getProperty("ultimategdbot.cache.gd_level.max_entries")),
+				Long.parseLong(props.getProperty("ultimategdbot.cache.gd_level.max_bytes")));
+		gdLevelCache.setRefreshAfter(Long.parseLong(props.getProperty("ultimategdbot.cache.gd_level.refresh_after")));
+		long offHeapBytes = Long.parseLong(props.getProperty("ultimategdbot.cache.offheap_bytes"));
+		if (offHeapBytes > 0)
+			cache.enableOffHeapTier(offHeapBytes);
+		long snapshotPeriod = Long.parseLong(props.getProperty("ultimategdbot.cache.snapshot_period"));
+		if (snapshotPeriod > 0)
+			cache.enableSnapshots(Paths.get(props.getProperty("ultimategdbot.cache.snapshot_file")), snapshotPeriod);
 		this.globals = BotUtils.initGlobalSettings();
 		this.modules = new HashMap<>();
 		this.startedModules = new HashMap<>();
-		this.gdClient = new GDHttpClient(
-				Long.parseLong(props.getProperty("ultimategdbot.gd_client.id")),
-				props.getProperty("ultimategdbot.gd_client.password"));
+		long gdAccountID = Long.parseLong(props.getProperty("ultimategdbot.gd_client.id"));
+		String gdPassword = props.getProperty("ultimategdbot.gd_client.password");
+		GDHttpClient directClient = new GDHttpClient(gdAccountID, gdPassword);
+		this.gdGateway = new GDGateway(directClient, Integer.parseInt(props.getProperty("ultimategdbot.gd_client.max_concurrency")));
+		double maxRate = Double.parseDouble(props.getProperty("ultimategdbot.gd_client.max_rate"));
+		if (maxRate > 0)
+			gdGateway.setRateLimiter(new AdaptiveRateLimiter(maxRate,
+					Double.parseDouble(props.getProperty("ultimategdbot.gd_client.min_rate")),
+					Long.parseLong(props.getProperty("ultimategdbot.gd_client.slow_response"))));
+		int breakerFailures = Integer.parseInt(props.getProperty("ultimategdbot.gd_client.breaker_failures"));
+		if (breakerFailures > 0)
+			gdGateway.setCircuitBreaker(new CircuitBreaker(breakerFailures,
+					Long.parseLong(props.getProperty("ultimategdbot.gd_client.breaker_open_duration"))));
+		int maxAttempts = Integer.parseInt(props.getProperty("ultimategdbot.gd_client.max_attempts"));
+		if (maxAttempts > 1) {
+			RetryPolicy retryPolicy = new RetryPolicy(maxAttempts,
+					Long.parseLong(props.getProperty("ultimategdbot.gd_client.retry_base_delay")),
+					Double.parseDouble(props.getProperty("ultimategdbot.gd_client.retry_budget")));
+			retryPolicy.setHedging(Boolean.parseBoolean(props.getProperty("ultimategdbot.gd_client.hedging")));
+			gdGateway.setRetryPolicy(retryPolicy);
+		}
+		this.gdClient = new GatewayHttpClient(gdGateway, RequestPriority.EVENT_SCAN, gdAccountID, gdPassword);
 		String host = props.getProperty("ultimategdbot.gd_client.url");
-		if (!host.equals("default"))
+		if (!host.equals("default")) {
+			directClient.setHost(host);
 			gdClient.setHost(host);
+		}
 		this.emojiGuilds = null;
 	}
 	
@@ -119,10 +173,43 @@ public class UltimateGDBot {
 		return instance().cache;
 	}
 	
+	/**
+	 * Gets the cache region holding Geometry Dash users, by account ID
+	 * 
+	 * @return CacheRegion&lt;GDUser&gt;
+	 */
+	public static CacheRegion<GDUser> gdUserCache() {
+		return instance().gdUserCache;
+	}
+	
+	/**
+	 * Gets the cache region holding Geometry Dash levels, by level ID
+	 * 
+	 * @return CacheRegion&lt;GDLevel&gt;
+	 */
+	public static CacheRegion<GDLevel> gdLevelCache() {
+		return instance().gdLevelCache;
+	}
+	
+	/**
+	 * Gets the Geometry Dash client. Its requests go through the gateway, as
+	 * event scan requests.
+	 * 
+	 * @return GDHttpClient
+	 */
 	public static GDHttpClient gdClient() {
 		return instance().gdClient;
 	}
 	
+	/**
+	 * Gets the gateway through which requests to Geometry Dash servers should be sent
+	 * 
+	 * @return GDGateway
+	 */
+	public static GDGateway gdGateway() {
+		return instance().gdGateway;
+	}
+	
 	public static IGuild officialGuild() {
 		return (IGuild) BotUtils.resolveSnowflakeString(SnowflakeType.GUILD, property("ultimategdbot.hierarchy.official_guild_id"));
 	}
@@ -168,6 +255,10 @@ public class UltimateGDBot {
 	}
 	
 	public static void logException(Exception e) {
+		// Already reported once by the circuit breaker when it opened
+		if (e instanceof CircuitOpenException)
+			return;
+		
 		if (e instanceof GDAPIException) {
 			GDAPIException ge = (GDAPIException) e;
 			StringBuilder sb = new StringBuilder("A problem occured when fetching data from Geometry Dash servers.\n");
@@ -194,6 +285,16 @@ public class UltimateGDBot {
 		}
 	}
 	
+	public static void logException(Throwable t) {
+		if (t instanceof Exception) {
+			logException((Exception) t);
+			return;
+		}
+		
+		logError("Error thrown: `" + t.getClass().getName() + ": " + t.getMessage() + "`");
+		t.printStackTrace();
+	}
+	
 	public static void addModule(String key, Module module) {
 		instance().modules.put(key, module);
 		instance().startedModules.put(key, false);
@@ -0,0 +1,181 @@
+package com.github.alex1304.ultimategdbot.dbentities;
+
+import java.sql.Timestamp;
+
+/**
+ * Database entity for the delivery of a journaled GD event to a guild
+ *
+ * @author Alex1304
+ */
+public class JournalDelivery {
+
+	public static final int PENDING = 0;
+	public static final int DELIVERED = 1;
+	public static final int FAILED = 2;
+
+	private long id;
+	private long entryID;
+	private long guildID;
+	private long channelID;
+	private String content;
+	private int status;
+	private long messageID;
+	private Timestamp updateDate;
+	
+	public JournalDelivery() {
+	}
+	
+	public JournalDelivery(long entryID, long guildID, long channelID, String content, int status, long messageID, Timestamp updateDate) {
+		this.entryID = entryID;
+		this.guildID = guildID;
+		this.channelID = channelID;
+		this.content = content;
+		this.status = status;
+		this.messageID = messageID;
+		this.updateDate = updateDate;
+	}
+
+	/**
+	 * Gets the id
+	 *
+	 * @return long
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the entryID
+	 *
+	 * @return long
+	 */
+	public long getEntryID() {
+		return entryID;
+	}
+
+	/**
+	 * Gets the guildID
+	 *
+	 * @return long
+	 */
+	public long getGuildID() {
+		return guildID;
+	}
+
+	/**
+	 * Gets the channelID
+	 *
+	 * @return long
+	 */
+	public long getChannelID() {
+		return channelID;
+	}
+
+	/**
+	 * Gets the content
+	 *
+	 * @return String
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Gets the status
+	 *
+	 * @return int
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the messageID
+	 *
+	 * @return long
+	 */
+	public long getMessageID() {
+		return messageID;
+	}
+
+	/**
+	 * Gets the updateDate
+	 *
+	 * @return Timestamp
+	 */
+	public Timestamp getUpdateDate() {
+		return updateDate;
+	}
+
+	/**
+	 * Sets the id
+	 *
+	 * @param id - long
+	 */
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	/**
+	 * Sets the entryID
+	 *
+	 * @param entryID - long
+	 */
+	public void setEntryID(long entryID) {
+		this.entryID = entryID;
+	}
+
+	/**
+	 * Sets the guildID
+	 *
+	 * @param guildID - long
+	 */
+	public void setGuildID(long guildID) {
+		this.guildID = guildID;
+	}
+
+	/**
+	 * Sets the channelID
+	 *
+	 * @param channelID - long
+	 */
+	public void setChannelID(long channelID) {
+		this.channelID = channelID;
+	}
+
+	/**
+	 * Sets the content
+	 *
+	 * @param content - String
+	 */
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	/**
+	 * Sets the status
+	 *
+	 * @param status - int
+	 */
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	/**
+	 * Sets the messageID
+	 *
+	 * @param messageID - long
+	 */
+	public void setMessageID(long messageID) {
+		this.messageID = messageID;
+	}
+
+	/**
+	 * Sets the updateDate
+	 *
+	 * @param updateDate - Timestamp
+	 */
+	public void setUpdateDate(Timestamp updateDate) {
+		this.updateDate = updateDate;
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.alex1304.ultimategdbot.dbentities;
+
+import java.sql.Timestamp;
+
+/**
+ * Database entity for a GD event recorded in the event journal
+ *
+ * @author Alex1304
+ */
+public class JournalEntry {
+
+	private long id;
+	private String eventName;
+	private String embed;
+	private Timestamp insertDate;
+	
+	public JournalEntry() {
+	}
+	
+	public JournalEntry(String eventName, String embed, Timestamp insertDate) {
+		this.eventName = eventName;
+		this.embed = embed;
+		this.insertDate = insertDate;
+	}
+
+	/**
+	 * Gets the id
+	 *
+	 * @return long
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the eventName
+	 *
+	 * @return String
+	 */
+	public String getEventName() {
+		return eventName;
+	}
+
+	/**
+	 * Gets the embed
+	 *
+	 * @return String
+	 */
+	public String getEmbed() {
+		return embed;
+	}
+
+	/**
+	 * Gets the insertDate
+	 *
+	 * @return Timestamp
+	 */
+	public Timestamp getInsertDate() {
+		return insertDate;
+	}
+
+	/**
+	 * Sets the id
+	 *
+	 * @param id - long
+	 */
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	/**
+	 * Sets the eventName
+	 *
+	 * @param eventName - String
+	 */
+	public void setEventName(String eventName) {
+		this.eventName = eventName;
+	}
+
+	/**
+	 * Sets the embed
+	 *
+	 * @param embed - String
+	 */
+	public void setEmbed(String embed) {
+		this.embed = embed;
+	}
+
+	/**
+	 * Sets the insertDate
+	 *
+	 * @param insertDate - Timestamp
+	 */
+	public void setInsertDate(Timestamp insertDate) {
+		this.insertDate = insertDate;
+	}
+}
@@ -0,0 +1,78 @@
+package com.github.alex1304.ultimategdbot.dbentities;
+
+import java.sql.Timestamp;
+
+/**
+ * Database entity for the last state seen by a GD event scanner
+ *
+ * @author Alex1304
+ */
+public class ScanCheckpoint {
+
+	private String name;
+	private String state;
+	private Timestamp updateDate;
+	
+	public ScanCheckpoint() {
+	}
+	
+	public ScanCheckpoint(String name, String state, Timestamp updateDate) {
+		this.name = name;
+		this.state = state;
+		this.updateDate = updateDate;
+	}
+
+	/**
+	 * Gets the name
+	 *
+	 * @return String
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the state
+	 *
+	 * @return String
+	 */
+	public String getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the updateDate
+	 *
+	 * @return Timestamp
+	 */
+	public Timestamp getUpdateDate() {
+		return updateDate;
+	}
+
+	/**
+	 * Sets the name
+	 *
+	 * @param name - String
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Sets the state
+	 *
+	 * @param state - String
+	 */
+	public void setState(String state) {
+		this.state = state;
+	}
+
+	/**
+	 * Sets the updateDate
+	 *
+	 * @param updateDate - Timestamp
+	 */
+	public void setUpdateDate(Timestamp updateDate) {
+		this.updateDate = updateDate;
+	}
+}
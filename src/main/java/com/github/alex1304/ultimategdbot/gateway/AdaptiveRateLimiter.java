@@ -0,0 +1,143 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limits the rate of requests sent to the Geometry Dash servers, adapting it
+ * to how the servers respond (additive increase, multiplicative decrease).
+ *
+ * Every successful response raises the rate a little, by about one request
+ * per second each second when the limiter is fully used. Every failure or
+ * response slower than the configured threshold halves it, at most once per
+ * second so that a burst of failures from the same outage doesn't drop it to
+ * the minimum at once. The rate always stays between the configured bounds.
+ *
+ * Permits are handed out by a token bucket holding up to one second worth of
+ * requests, so short bursts don't have to wait.
+ *
+ * @author Alex1304
+ */
+public class AdaptiveRateLimiter {
+
+	private static final double DECREASE_FACTOR = 0.5;
+	private static final long DECREASE_COOLDOWN = 1_000_000_000L;
+
+	private final double maxRate;
+	private final double minRate;
+	private final long slowResponseNanos;
+	private double rate;
+	private double tokens;
+	private long lastRefill;
+	private long lastDecrease;
+	private final LongAdder decreaseCount;
+
+	/**
+	 * @param maxRate
+	 *            - the maximum number of requests per second
+	 * @param minRate
+	 *            - the number of requests per second the rate never goes
+	 *            below
+	 * @param slowResponseMillis
+	 *            - how long a response can take before it is considered as a
+	 *            sign of overload, in milliseconds. 0 to only consider failures
+	 */
+	public AdaptiveRateLimiter(double maxRate, double minRate, long slowResponseMillis) {
+		if (minRate <= 0 || maxRate < minRate)
+			throw new IllegalArgumentException("Rate bounds must be positive, with the minimum not above the maximum");
+
+		this.maxRate = maxRate;
+		this.minRate = minRate;
+		this.slowResponseNanos = slowResponseMillis * 1_000_000;
+		this.rate = maxRate;
+		this.tokens = Math.max(1, maxRate);
+		this.lastRefill = System.nanoTime();
+		this.lastDecrease = lastRefill - DECREASE_COOLDOWN;
+		this.decreaseCount = new LongAdder();
+	}
+
+	/**
+	 * Waits until a request can be sent
+	 */
+	void acquire() {
+		long deadline = System.nanoTime() + reserve();
+
+		for (long wait = deadline - System.nanoTime() ; wait > 0 ; wait = deadline - System.nanoTime())
+			LockSupport.parkNanos(wait);
+	}
+
+	/**
+	 * Takes a token from the bucket and gives how long the caller must wait
+	 * before using it. Tokens taken from an empty bucket are owed, which
+	 * makes the next callers wait longer.
+	 */
+	private synchronized long reserve() {
+		long now = System.nanoTime();
+		tokens = Math.min(Math.max(1, rate), tokens + (now - lastRefill) * rate / 1e9);
+		lastRefill = now;
+		tokens--;
+		return tokens >= 0 ? 0 : (long) (-tokens / rate * 1e9);
+	}
+
+	/**
+	 * Reports a successful response
+	 *
+	 * @param latencyNanos
+	 *            - how long the response took, in nanoseconds
+	 */
+	void onSuccess(long latencyNanos) {
+		if (slowResponseNanos > 0 && latencyNanos > slowResponseNanos)
+			decrease();
+		else
+			increase();
+	}
+
+	/**
+	 * Reports a failed request
+	 */
+	void onFailure() {
+		decrease();
+	}
+
+	private synchronized void increase() {
+		rate = Math.min(maxRate, rate + 1 / rate);
+	}
+
+	private synchronized void decrease() {
+		long now = System.nanoTime();
+		if (now - lastDecrease < DECREASE_COOLDOWN)
+			return;
+
+		lastDecrease = now;
+		rate = Math.max(minRate, rate * DECREASE_FACTOR);
+		decreaseCount.increment();
+	}
+
+	/**
+	 * Gets the current number of requests allowed per second
+	 *
+	 * @return double
+	 */
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Gets the maximum number of requests allowed per second
+	 *
+	 * @return double
+	 */
+	public double getMaxRate() {
+		return maxRate;
+	}
+
+	/**
+	 * Gets the number of times the rate was cut because of failures or slow
+	 * responses
+	 *
+	 * @return long
+	 */
+	public long getDecreaseCount() {
+		return decreaseCount.sum();
+	}
+}
@@ -0,0 +1,174 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.utils.BotUtils;
+
+/**
+ * Stops sending requests to the Geometry Dash servers while they are down,
+ * so that callers fail instantly instead of waiting for a timeout.
+ *
+ * The breaker is CLOSED while requests go through normally. After a given
+ * number of consecutive failures, it goes OPEN and rejects every request for
+ * a while. Then it goes HALF_OPEN and lets a single trial request through:
+ * if it succeeds the breaker closes again, otherwise it opens for another
+ * period.
+ *
+ * State changes are logged once, when they happen.
+ *
+ * @author Alex1304
+ */
+public class CircuitBreaker {
+
+	/**
+	 * States of the breaker
+	 */
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openDuration;
+	private State state;
+	private int consecutiveFailures;
+	private long openedAt;
+	private boolean trialInFlight;
+	private final LongAdder rejectedCount;
+
+	/**
+	 * @param failureThreshold
+	 *            - the number of consecutive failures that opens the breaker
+	 * @param openDuration
+	 *            - how long the breaker stays open before letting a trial
+	 *            request through, in milliseconds
+	 */
+	public CircuitBreaker(int failureThreshold, long openDuration) {
+		if (failureThreshold <= 0 || openDuration <= 0)
+			throw new IllegalArgumentException("Breaker threshold and open duration must be positive");
+
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+		this.state = State.CLOSED;
+		this.rejectedCount = new LongAdder();
+	}
+
+	/**
+	 * Asks permission to send a request. The caller must report the outcome
+	 * of the request if permission is given.
+	 *
+	 * @return true if the request can be sent
+	 */
+	boolean tryAcquire() {
+		State changedTo = null;
+
+		synchronized (this) {
+			if (state == State.OPEN) {
+				if (System.currentTimeMillis() - openedAt < openDuration) {
+					rejectedCount.increment();
+					return false;
+				}
+
+				state = changedTo = State.HALF_OPEN;
+			}
+
+			if (state == State.HALF_OPEN) {
+				if (trialInFlight) {
+					rejectedCount.increment();
+					return false;
+				}
+
+				trialInFlight = true;
+			}
+		}
+
+		logChange(changedTo);
+		return true;
+	}
+
+	/**
+	 * Reports a successful request
+	 */
+	void onSuccess() {
+		State changedTo = null;
+
+		synchronized (this) {
+			consecutiveFailures = 0;
+			trialInFlight = false;
+
+			if (state != State.CLOSED)
+				state = changedTo = State.CLOSED;
+		}
+
+		logChange(changedTo);
+	}
+
+	/**
+	 * Reports a request whose outcome says nothing about the state of the
+	 * servers. It only gives the trial slot back, if the request was the
+	 * trial.
+	 */
+	synchronized void onIgnored() {
+		trialInFlight = false;
+	}
+
+	/**
+	 * Reports a failed request
+	 */
+	void onFailure() {
+		State changedTo = null;
+
+		synchronized (this) {
+			consecutiveFailures++;
+			trialInFlight = false;
+
+			if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+				state = changedTo = State.OPEN;
+				openedAt = System.currentTimeMillis();
+			}
+		}
+
+		logChange(changedTo);
+	}
+
+	private void logChange(State changedTo) {
+		if (changedTo == State.OPEN)
+			UltimateGDBot.logWarning("Geometry Dash servers look unavailable, requests to them are suspended for "
+					+ BotUtils.formatTimeMillis(openDuration));
+		else if (changedTo == State.HALF_OPEN)
+			UltimateGDBot.logInfo("Sending a trial request to check if Geometry Dash servers are back");
+		else if (changedTo == State.CLOSED)
+			UltimateGDBot.logSuccess("Geometry Dash servers are available again, requests to them are resumed");
+	}
+
+	/**
+	 * Tells whether requests are currently being rejected. Unlike
+	 * {@link #tryAcquire()}, this doesn't change the state of the breaker.
+	 *
+	 * @return boolean
+	 */
+	public synchronized boolean isRejecting() {
+		return state == State.OPEN && System.currentTimeMillis() - openedAt < openDuration
+				|| state == State.HALF_OPEN && trialInFlight;
+	}
+
+	/**
+	 * Gets the state of the breaker
+	 *
+	 * @return State
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the number of requests rejected because the breaker was open
+	 *
+	 * @return long
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+}
@@ -0,0 +1,17 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+/**
+ * Thrown when a request is rejected without being sent, because the
+ * {@link CircuitBreaker} of the gateway is open
+ *
+ * @author Alex1304
+ */
+public class CircuitOpenException extends RuntimeException {
+
+	private static final long serialVersionUID = 2306581932658743514L;
+
+	public CircuitOpenException() {
+		super("Requests to Geometry Dash servers are suspended");
+	}
+
+}
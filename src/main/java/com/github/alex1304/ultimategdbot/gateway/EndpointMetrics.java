@@ -0,0 +1,113 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.util.Locale;
+
+import com.github.alex1304.ultimategdbot.utils.LatencyHistogram;
+
+/**
+ * Response times of the requests sent to the Geometry Dash servers, broken
+ * down by type of request and by outcome. Only the time spent waiting for the
+ * servers is measured, not the time spent in the queue of the gateway.
+ *
+ * @author Alex1304
+ */
+public class EndpointMetrics {
+
+	private static final double[] PERCENTILES = { 50, 90, 95, 99, 99.9 };
+
+	private final LatencyHistogram[][] latencies;
+	private final LatencyHistogram[] typeLatencies;
+
+	public EndpointMetrics() {
+		this.latencies = new LatencyHistogram[RequestType.values().length][RequestOutcome.values().length];
+		this.typeLatencies = new LatencyHistogram[RequestType.values().length];
+
+		for (int i = 0 ; i < latencies.length ; i++) {
+			typeLatencies[i] = new LatencyHistogram();
+			for (int j = 0 ; j < latencies[i].length ; j++)
+				latencies[i][j] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Records the response time of a request
+	 *
+	 * @param type
+	 *            - the type of the request
+	 * @param outcome
+	 *            - how the request ended
+	 * @param nanos
+	 *            - the response time in nanoseconds
+	 */
+	void record(RequestType type, RequestOutcome outcome, long nanos) {
+		latencies[type.ordinal()][outcome.ordinal()].record(nanos);
+		typeLatencies[type.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Gets the response times of requests of the given type, whatever their
+	 * outcome
+	 *
+	 * @param type
+	 *            - the type of request
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getLatency(RequestType type) {
+		return typeLatencies[type.ordinal()];
+	}
+
+	/**
+	 * Gets the response times of requests of the given type that ended with
+	 * the given outcome
+	 *
+	 * @param type
+	 *            - the type of request
+	 * @param outcome
+	 *            - the outcome
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getLatency(RequestType type, RequestOutcome outcome) {
+		return latencies[type.ordinal()][outcome.ordinal()];
+	}
+
+	/**
+	 * Dumps the metrics as a JSON object, with one entry per type of request
+	 * that was sent at least once. Durations are in milliseconds.
+	 *
+	 * @return String
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder("{");
+
+		for (RequestType type : RequestType.values()) {
+			LatencyHistogram all = getLatency(type);
+			if (all.getCount() == 0)
+				continue;
+
+			if (sb.length() > 1)
+				sb.append(",");
+			sb.append("\n  \"").append(type.name().toLowerCase()).append("\": {\n    \"all\": ");
+			appendHistogram(sb, all);
+
+			for (RequestOutcome outcome : RequestOutcome.values()) {
+				sb.append(",\n    \"").append(outcome.name().toLowerCase()).append("\": ");
+				appendHistogram(sb, getLatency(type, outcome));
+			}
+
+			sb.append("\n  }");
+		}
+
+		return sb.append("\n}").toString();
+	}
+
+	private static void appendHistogram(StringBuilder sb, LatencyHistogram histogram) {
+		sb.append("{\"count\": ").append(histogram.getCount());
+		sb.append(String.format(Locale.ROOT, ", \"mean\": %.1f", histogram.getMeanMillis()));
+
+		for (double p : PERCENTILES)
+			sb.append(String.format(Locale.ROOT, ", \"p%s\": %.1f", p == (long) p ? String.valueOf((long) p)
+					: String.valueOf(p).replace('.', '_'), histogram.getPercentileMillis(p)));
+
+		sb.append("}");
+	}
+}
@@ -0,0 +1,518 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.alex1304.jdash.api.GDHttpClient;
+import com.github.alex1304.jdash.api.GDHttpRequest;
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.exceptions.GDAPIException;
+import com.github.alex1304.ultimategdbot.utils.LatencyHistogram;
+
+/**
+ * Sends requests to the Geometry Dash servers on behalf of the whole bot.
+ * Requests are run on a dedicated pool of I/O threads, so there are never
+ * more than a fixed number of them in flight at once. Requests submitted
+ * while all threads are busy wait in a queue.
+ *
+ * {@link #fetchAsync(GDHttpRequest)} gives the result as a future, so that
+ * callers can compose several requests without blocking a thread for each of
+ * them. {@link #fetch(GDHttpRequest)} is kept for code that needs the result
+ * right away.
+ *
+ * Each request belongs to a {@link RequestPriority} class, INTERACTIVE by
+ * default. Waiting requests are dispatched with weighted fair scheduling
+ * between classes, so that a user waiting on a command isn't stuck behind a
+ * large batch of background requests. Queue time and total latency are
+ * recorded per class.
+ *
+ * An {@link AdaptiveRateLimiter} can be set to slow requests down when the
+ * servers show signs of overload. The time requests spend waiting, for a free
+ * thread or for the limiter, is recorded and can be read with
+ * {@link #getQueueTime()}.
+ *
+ * A {@link CircuitBreaker} can also be set to fail requests instantly with a
+ * {@link CircuitOpenException} while the servers are down.
+ *
+ * Failed requests that only read data are retried following the
+ * {@link RetryPolicy}, if one is set. Retries and hedged requests go through
+ * the breaker, the limiter and the queue like any other request.
+ *
+ * @author Alex1304
+ */
+public class GDGateway {
+
+	private static final ThreadLocal<Boolean> GATEWAY_THREAD = ThreadLocal.withInitial(() -> false);
+	private static final long HEDGE_MIN_SAMPLES = 100;
+
+	private final GDHttpClient client;
+	private final int maxConcurrency;
+	private final WeightedFairQueue queue;
+	private final AtomicInteger inFlight;
+	private final LongAdder completedCount;
+	private final LongAdder failedCount;
+	private final LatencyHistogram queueTime;
+	private final LatencyHistogram[] classQueueTimes;
+	private final LatencyHistogram[] classLatencies;
+	private final EndpointMetrics endpointMetrics;
+	private volatile AdaptiveRateLimiter rateLimiter;
+	private volatile CircuitBreaker circuitBreaker;
+	private volatile RetryPolicy retryPolicy;
+	private final ScheduledExecutorService retryScheduler;
+
+	/**
+	 * @param client
+	 *            - the client used to send the requests
+	 * @param maxConcurrency
+	 *            - the maximum number of requests in flight at once
+	 */
+	public GDGateway(GDHttpClient client, int maxConcurrency) {
+		if (maxConcurrency <= 0)
+			throw new IllegalArgumentException("Gateway concurrency must be positive");
+
+		this.client = client;
+		this.maxConcurrency = maxConcurrency;
+		this.queue = new WeightedFairQueue();
+		this.inFlight = new AtomicInteger();
+		this.completedCount = new LongAdder();
+		this.failedCount = new LongAdder();
+		this.queueTime = new LatencyHistogram();
+		this.classQueueTimes = new LatencyHistogram[RequestPriority.values().length];
+		this.classLatencies = new LatencyHistogram[RequestPriority.values().length];
+		this.endpointMetrics = new EndpointMetrics();
+
+		for (int i = 0 ; i < classQueueTimes.length ; i++) {
+			classQueueTimes[i] = new LatencyHistogram();
+			classLatencies[i] = new LatencyHistogram();
+		}
+
+		this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "gd-gateway-retry");
+			t.setDaemon(true);
+			return t;
+		});
+
+		for (int i = 1 ; i <= maxConcurrency ; i++) {
+			Thread t = new Thread(this::work, "gd-gateway-" + i);
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	private void work() {
+		GATEWAY_THREAD.set(true);
+
+		while (true) {
+			try {
+				queue.take().run();
+			} catch (InterruptedException e) {
+				return;
+			} catch (Throwable t) {
+				// The worker must survive, otherwise the gateway slowly loses its concurrency
+				t.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Queues a request and gives its result as a future. The future completes
+	 * exceptionally with a {@link GDAPIException} if the request fails, or
+	 * with a {@link CircuitOpenException} if it is rejected by the circuit
+	 * breaker.
+	 *
+	 * @param request
+	 *            - the request to send
+	 * @param priority
+	 *            - the priority class of the request
+	 * @param <T>
+	 *            - the type of component returned by the request
+	 * @return CompletableFuture&lt;T&gt;
+	 */
+	public <T extends GDComponent> CompletableFuture<T> fetchAsync(GDHttpRequest<T> request, RequestPriority priority) {
+		CompletableFuture<T> result = track(new CompletableFuture<>(), priority);
+		RetryPolicy policy = RetryPolicy.isIdempotent(request) ? retryPolicy : null;
+
+		if (policy == null) {
+			submit(request, priority, result);
+			return result;
+		}
+
+		AtomicInteger outstanding = new AtomicInteger(1);
+		policy.deposit();
+		attempt(request, priority, policy, result, outstanding, 1);
+
+		if (policy.isHedging()) {
+			// Server response time only, time spent in the queue would delay the hedge for nothing
+			LatencyHistogram latency = endpointMetrics.getLatency(RequestType.of(request), RequestOutcome.SUCCESS);
+			if (latency.getCount() >= HEDGE_MIN_SAMPLES) {
+				long hedgeDelay = (long) (latency.getPercentileMillis(95) * 1000);
+
+				retryScheduler.schedule(() -> {
+					if (!result.isDone() && policy.tryHedge()) {
+						outstanding.incrementAndGet();
+						// The hedged copy is never retried itself
+						attempt(request, priority, policy, result, outstanding, Integer.MAX_VALUE);
+					}
+				}, hedgeDelay, TimeUnit.MICROSECONDS);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Sends one attempt of a request, and schedules the next one if it fails
+	 * and the policy allows it. The result fails once every outstanding
+	 * attempt has failed for good.
+	 */
+	private <T extends GDComponent> void attempt(GDHttpRequest<T> request, RequestPriority priority, RetryPolicy policy,
+			CompletableFuture<T> result, AtomicInteger outstanding, int attempt) {
+		if (result.isDone())
+			return;
+
+		CompletableFuture<T> future = new CompletableFuture<>();
+		submit(request, priority, future);
+
+		future.whenComplete((value, error) -> {
+			if (error == null)
+				result.complete(value);
+			else if (!result.isDone() && !(error instanceof CircuitOpenException) && policy.tryRetry(attempt))
+				retryScheduler.schedule(() -> attempt(request, priority, policy, result, outstanding, attempt + 1),
+						policy.delayAfter(attempt), TimeUnit.MILLISECONDS);
+			else if (outstanding.decrementAndGet() == 0)
+				result.completeExceptionally(error);
+		});
+	}
+
+	private <T extends GDComponent> void submit(GDHttpRequest<T> request, RequestPriority priority, CompletableFuture<T> future) {
+		CircuitBreaker breaker = circuitBreaker;
+		long submitTime = System.nanoTime();
+
+		if (admit(breaker, future))
+			queue.add(priority, () -> send(request, priority, breaker, future, submitTime));
+	}
+
+	private <T> CompletableFuture<T> track(CompletableFuture<T> result, RequestPriority priority) {
+		long submitTime = System.nanoTime();
+		result.whenComplete((value, error) -> {
+			// Rejections are instant and would make the class look faster than it is
+			if (!(error instanceof CircuitOpenException))
+				classLatencies[priority.ordinal()].record(System.nanoTime() - submitTime);
+		});
+		return result;
+	}
+
+	/**
+	 * Same as {@link #fetchAsync(GDHttpRequest, RequestPriority)} with the
+	 * INTERACTIVE priority
+	 *
+	 * @param request
+	 *            - the request to send
+	 * @param <T>
+	 *            - the type of component returned by the request
+	 * @return CompletableFuture&lt;T&gt;
+	 */
+	public <T extends GDComponent> CompletableFuture<T> fetchAsync(GDHttpRequest<T> request) {
+		return fetchAsync(request, RequestPriority.INTERACTIVE);
+	}
+
+	/**
+	 * Sends a request and waits for its result. When called from a thread of
+	 * the gateway, the request is sent right away instead of being queued, as
+	 * waiting for a free thread from there could never end. It isn't retried
+	 * in that case.
+	 *
+	 * @param request
+	 *            - the request to send
+	 * @param priority
+	 *            - the priority class of the request
+	 * @param <T>
+	 *            - the type of component returned by the request
+	 * @return T
+	 * @throws GDAPIException
+	 *             if the request fails
+	 * @throws CircuitOpenException
+	 *             if the request is rejected by the circuit breaker
+	 */
+	public <T extends GDComponent> T fetch(GDHttpRequest<T> request, RequestPriority priority) throws GDAPIException {
+		CompletableFuture<T> future;
+
+		if (GATEWAY_THREAD.get()) {
+			future = track(new CompletableFuture<>(), priority);
+			CircuitBreaker breaker = circuitBreaker;
+			if (admit(breaker, future))
+				send(request, priority, breaker, future, System.nanoTime());
+		} else
+			future = fetchAsync(request, priority);
+
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof GDAPIException)
+				throw (GDAPIException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Same as {@link #fetch(GDHttpRequest, RequestPriority)} with the
+	 * INTERACTIVE priority
+	 *
+	 * @param request
+	 *            - the request to send
+	 * @param <T>
+	 *            - the type of component returned by the request
+	 * @return T
+	 * @throws GDAPIException
+	 *             if the request fails
+	 */
+	public <T extends GDComponent> T fetch(GDHttpRequest<T> request) throws GDAPIException {
+		return fetch(request, RequestPriority.INTERACTIVE);
+	}
+
+	private boolean admit(CircuitBreaker breaker, CompletableFuture<?> future) {
+		if (breaker == null || breaker.tryAcquire())
+			return true;
+
+		future.completeExceptionally(new CircuitOpenException());
+		return false;
+	}
+
+	private <T extends GDComponent> void send(GDHttpRequest<T> request, RequestPriority priority, CircuitBreaker breaker,
+			CompletableFuture<T> future, long submitTime) {
+		AdaptiveRateLimiter limiter = rateLimiter;
+		if (limiter != null)
+			limiter.acquire();
+
+		long start = System.nanoTime();
+		queueTime.record(start - submitTime);
+		classQueueTimes[priority.ordinal()].record(start - submitTime);
+		inFlight.incrementAndGet();
+
+		try {
+			T result = client.fetch(request);
+			endpointMetrics.record(RequestType.of(request), RequestOutcome.SUCCESS, System.nanoTime() - start);
+			if (limiter != null)
+				limiter.onSuccess(System.nanoTime() - start);
+			if (breaker != null)
+				breaker.onSuccess();
+			completedCount.increment();
+			future.complete(result);
+		} catch (GDAPIException | RuntimeException e) {
+			RequestOutcome outcome = RequestOutcome.of(e);
+			endpointMetrics.record(RequestType.of(request), outcome, System.nanoTime() - start);
+			// A response that can't be parsed still means the server is up and keeps up, unlike any other failure
+			boolean serverFailure = outcome != RequestOutcome.PARSE_ERROR;
+			if (limiter != null) {
+				if (serverFailure)
+					limiter.onFailure();
+				else
+					limiter.onSuccess(System.nanoTime() - start);
+			}
+			if (breaker != null) {
+				if (serverFailure)
+					breaker.onFailure();
+				else
+					breaker.onSuccess();
+			}
+			failedCount.increment();
+			future.completeExceptionally(e);
+		} catch (Throwable t) {
+			// Says nothing about the server, but a trial request must still give its slot back
+			if (breaker != null)
+				breaker.onIgnored();
+			failedCount.increment();
+			t.printStackTrace();
+			future.completeExceptionally(t);
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Sets the rate limiter applied to requests, or null to send them as soon
+	 * as a thread is free
+	 *
+	 * @param rateLimiter
+	 *            - the rate limiter
+	 */
+	public void setRateLimiter(AdaptiveRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Gets the rate limiter applied to requests, or null if there is none
+	 *
+	 * @return AdaptiveRateLimiter
+	 */
+	public AdaptiveRateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Sets the circuit breaker applied to requests, or null to always send
+	 * them
+	 *
+	 * @param circuitBreaker
+	 *            - the circuit breaker
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Gets the circuit breaker applied to requests, or null if there is none
+	 *
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Sets the policy used to retry failed requests, or null to never retry
+	 * them
+	 *
+	 * @param retryPolicy
+	 *            - the retry policy
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Gets the policy used to retry failed requests, or null if there is none
+	 *
+	 * @return RetryPolicy
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Tells whether requests are currently rejected by the circuit breaker.
+	 * Background tasks can use this to skip their work while the servers are
+	 * down.
+	 *
+	 * @return boolean
+	 */
+	public boolean isSuspended() {
+		CircuitBreaker breaker = circuitBreaker;
+		return breaker != null && breaker.isRejecting();
+	}
+
+	/**
+	 * Gets the time requests spent waiting before being sent
+	 *
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getQueueTime() {
+		return queueTime;
+	}
+
+	/**
+	 * Gets the time requests of the given class spent waiting before being
+	 * sent
+	 *
+	 * @param priority
+	 *            - the priority class
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getQueueTime(RequestPriority priority) {
+		return classQueueTimes[priority.ordinal()];
+	}
+
+	/**
+	 * Gets the time requests of the given class took from being submitted to
+	 * getting a response, including retries. Requests rejected by the circuit
+	 * breaker aren't counted.
+	 *
+	 * @param priority
+	 *            - the priority class
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getLatency(RequestPriority priority) {
+		return classLatencies[priority.ordinal()];
+	}
+
+	/**
+	 * Gets the response times of the servers, by type of request and outcome
+	 *
+	 * @return EndpointMetrics
+	 */
+	public EndpointMetrics getEndpointMetrics() {
+		return endpointMetrics;
+	}
+
+	/**
+	 * Gets the client used to send the requests
+	 *
+	 * @return GDHttpClient
+	 */
+	public GDHttpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Gets the maximum number of requests in flight at once
+	 *
+	 * @return int
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * Gets the number of requests currently being sent
+	 *
+	 * @return int
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Gets the number of requests waiting for a free thread
+	 *
+	 * @return int
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Gets the number of requests of the given class waiting for a free thread
+	 *
+	 * @param priority
+	 *            - the priority class
+	 * @return int
+	 */
+	public int getQueueDepth(RequestPriority priority) {
+		return queue.size(priority);
+	}
+
+	/**
+	 * Gets the number of requests that succeeded
+	 *
+	 * @return long
+	 */
+	public long getCompletedCount() {
+		return completedCount.sum();
+	}
+
+	/**
+	 * Gets the number of requests that failed
+	 *
+	 * @return long
+	 */
+	public long getFailedCount() {
+		return failedCount.sum();
+	}
+}
@@ -0,0 +1,41 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import com.github.alex1304.jdash.api.GDHttpClient;
+import com.github.alex1304.jdash.api.GDHttpRequest;
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.exceptions.GDAPIException;
+
+/**
+ * HTTP client that sends its requests through a {@link GDGateway}, for code
+ * that expects a {@link GDHttpClient}, such as the GD event scanners. This
+ * way, their requests are subject to the same limits as the others, and are
+ * scheduled with the priority given to the client.
+ *
+ * @author Alex1304
+ */
+public class GatewayHttpClient extends GDHttpClient {
+
+	private final GDGateway gateway;
+	private final RequestPriority priority;
+
+	/**
+	 * @param gateway
+	 *            - the gateway to send the requests through
+	 * @param priority
+	 *            - the priority class of the requests
+	 * @param accountID
+	 *            - the account ID of the bot on Geometry Dash
+	 * @param password
+	 *            - the password of that account
+	 */
+	public GatewayHttpClient(GDGateway gateway, RequestPriority priority, long accountID, String password) {
+		super(accountID, password);
+		this.gateway = gateway;
+		this.priority = priority;
+	}
+
+	@Override
+	public <T extends GDComponent> T fetch(GDHttpRequest<T> request) throws GDAPIException {
+		return gateway.fetch(request, priority);
+	}
+}
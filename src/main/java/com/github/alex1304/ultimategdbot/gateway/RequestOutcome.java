@@ -0,0 +1,81 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.NoSuchElementException;
+
+import com.github.alex1304.jdash.exceptions.GDAPIException;
+
+/**
+ * How a request sent to the Geometry Dash servers ended, used to break down
+ * the {@link EndpointMetrics}
+ *
+ * @author Alex1304
+ */
+public enum RequestOutcome {
+	/**
+	 * A response was received and understood
+	 */
+	SUCCESS,
+	/**
+	 * A response was received but couldn't be understood
+	 */
+	PARSE_ERROR,
+	/**
+	 * The connection failed or the server answered with an HTTP error
+	 */
+	HTTP_ERROR,
+	/**
+	 * The server didn't answer in time
+	 */
+	TIMEOUT,
+	/**
+	 * The request failed for a reason that doesn't fit the other outcomes
+	 */
+	OTHER;
+
+	/**
+	 * Gets the outcome of a request that failed with the given error. jdash
+	 * wraps errors in a {@link GDAPIException}, so the underlying exception
+	 * tells what actually happened: an {@link IOException} comes from the
+	 * connection, and the exceptions thrown by the parsers of jdash when
+	 * splitting the response and reading numbers from it mean the response
+	 * couldn't be understood. Anything else is OTHER.
+	 *
+	 * @param error
+	 *            - the error the request failed with
+	 * @return RequestOutcome
+	 */
+	public static RequestOutcome of(Throwable error) {
+		for (Throwable t = error ; t != null ; t = next(t)) {
+			if (t instanceof InterruptedIOException)
+				return TIMEOUT;
+			if (t instanceof IOException)
+				return HTTP_ERROR;
+		}
+
+		return isParseError(error) ? PARSE_ERROR : OTHER;
+	}
+
+	private static boolean isParseError(Throwable error) {
+		Throwable cause = error;
+
+		if (error instanceof GDAPIException) {
+			GDAPIException e = (GDAPIException) error;
+			// The parsers only run once a response was received
+			if (e.getResponse() == null || e.getResponse().isEmpty())
+				return false;
+			cause = e.getUnderlyingException();
+		}
+
+		return cause instanceof NumberFormatException || cause instanceof IndexOutOfBoundsException
+				|| cause instanceof NoSuchElementException;
+	}
+
+	private static Throwable next(Throwable t) {
+		if (t instanceof GDAPIException && ((GDAPIException) t).getUnderlyingException() != null)
+			return ((GDAPIException) t).getUnderlyingException();
+
+		return t.getCause() == t ? null : t.getCause();
+	}
+}
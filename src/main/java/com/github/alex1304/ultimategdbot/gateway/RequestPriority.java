@@ -0,0 +1,39 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+/**
+ * Priority classes of requests sent through the {@link GDGateway}. When
+ * requests of several classes are waiting, each class gets a share of the
+ * gateway threads proportional to its weight.
+ *
+ * @author Alex1304
+ */
+public enum RequestPriority {
+	/**
+	 * Requests made for a user waiting on a command
+	 */
+	INTERACTIVE(8),
+	/**
+	 * Requests made by the GD event scanners
+	 */
+	EVENT_SCAN(3),
+	/**
+	 * Large batches of requests that nobody waits on individually, such as
+	 * building a leaderboard
+	 */
+	BULK(1);
+
+	private final int weight;
+
+	private RequestPriority(int weight) {
+		this.weight = weight;
+	}
+
+	/**
+	 * Gets the weight of this class
+	 *
+	 * @return int
+	 */
+	public int getWeight() {
+		return weight;
+	}
+}
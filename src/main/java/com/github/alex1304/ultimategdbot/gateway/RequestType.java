@@ -0,0 +1,56 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import com.github.alex1304.jdash.api.GDHttpRequest;
+import com.github.alex1304.jdash.api.request.GDLevelHttpRequest;
+import com.github.alex1304.jdash.api.request.GDLevelSearchHttpRequest;
+import com.github.alex1304.jdash.api.request.GDMessageListHttpRequest;
+import com.github.alex1304.jdash.api.request.GDMessageReadHttpRequest;
+import com.github.alex1304.jdash.api.request.GDTimelyLevelHttpRequest;
+import com.github.alex1304.jdash.api.request.GDUserHttpRequest;
+import com.github.alex1304.jdash.api.request.GDUserSearchHttpRequest;
+
+/**
+ * Kinds of requests sent to the Geometry Dash servers, used to break down
+ * the {@link EndpointMetrics}
+ *
+ * @author Alex1304
+ */
+public enum RequestType {
+	USER,
+	USER_SEARCH,
+	LEVEL,
+	LEVEL_SEARCH,
+	TIMELY,
+	MESSAGE_LIST,
+	MESSAGE_READ,
+	/**
+	 * Any request that doesn't fit in the other types, such as sending a
+	 * message
+	 */
+	OTHER;
+
+	/**
+	 * Gets the type of the given request
+	 *
+	 * @param request
+	 *            - the request
+	 * @return RequestType
+	 */
+	public static RequestType of(GDHttpRequest<?> request) {
+		if (request instanceof GDUserHttpRequest)
+			return USER;
+		if (request instanceof GDUserSearchHttpRequest)
+			return USER_SEARCH;
+		if (request instanceof GDLevelHttpRequest)
+			return LEVEL;
+		if (request instanceof GDLevelSearchHttpRequest)
+			return LEVEL_SEARCH;
+		if (request instanceof GDTimelyLevelHttpRequest)
+			return TIMELY;
+		if (request instanceof GDMessageListHttpRequest)
+			return MESSAGE_LIST;
+		if (request instanceof GDMessageReadHttpRequest)
+			return MESSAGE_READ;
+		return OTHER;
+	}
+}
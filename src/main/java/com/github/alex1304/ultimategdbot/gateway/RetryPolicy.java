@@ -0,0 +1,191 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.alex1304.jdash.api.GDHttpRequest;
+import com.github.alex1304.jdash.api.request.GDLevelHttpRequest;
+import com.github.alex1304.jdash.api.request.GDLevelSearchHttpRequest;
+import com.github.alex1304.jdash.api.request.GDTimelyLevelHttpRequest;
+import com.github.alex1304.jdash.api.request.GDUserHttpRequest;
+
+/**
+ * Decides when failed requests to the Geometry Dash servers are sent again.
+ * Only requests that read data are retried, as sending them twice has no
+ * side effect.
+ *
+ * Retries are delayed by a random duration between zero and an exponentially
+ * growing bound (full jitter), so that requests that failed together don't
+ * come back together.
+ *
+ * Retries are limited by a budget: every request adds a fraction of a token
+ * to it, and every retry takes a whole token. When the servers are really
+ * down, the budget runs out quickly and failures are reported instead of
+ * being retried over and over.
+ *
+ * Hedging can also be enabled: if a request hasn't answered after the 95th
+ * percentile response time of the servers for requests of its type, a second
+ * copy of it is sent and the first answer wins. Hedged requests take from the same budget.
+ *
+ * @author Alex1304
+ */
+public class RetryPolicy {
+
+	private static final long MAX_DELAY = 5000;
+	private static final double MAX_BUDGET = 10;
+
+	private final int maxAttempts;
+	private final long baseDelay;
+	private final double budgetRatio;
+	private volatile boolean hedging;
+	private double budget;
+	private final LongAdder retryCount;
+	private final LongAdder hedgeCount;
+	private final LongAdder exhaustedCount;
+
+	/**
+	 * @param maxAttempts
+	 *            - the maximum number of times a request is sent, including
+	 *            the first one
+	 * @param baseDelay
+	 *            - the upper bound of the delay before the first retry, in
+	 *            milliseconds. It doubles with each retry
+	 * @param budgetRatio
+	 *            - the number of retries allowed per request sent, on average
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelay, double budgetRatio) {
+		if (maxAttempts <= 0 || baseDelay < 0 || budgetRatio < 0)
+			throw new IllegalArgumentException("Invalid retry policy");
+
+		this.maxAttempts = maxAttempts;
+		this.baseDelay = baseDelay;
+		this.budgetRatio = budgetRatio;
+		this.budget = MAX_BUDGET;
+		this.retryCount = new LongAdder();
+		this.hedgeCount = new LongAdder();
+		this.exhaustedCount = new LongAdder();
+	}
+
+	/**
+	 * Tells whether the given request can be sent again safely
+	 *
+	 * @param request
+	 *            - the request
+	 * @return boolean
+	 */
+	public static boolean isIdempotent(GDHttpRequest<?> request) {
+		return request instanceof GDUserHttpRequest || request instanceof GDLevelHttpRequest
+				|| request instanceof GDLevelSearchHttpRequest || request instanceof GDTimelyLevelHttpRequest;
+	}
+
+	/**
+	 * Adds to the budget the share of a new request
+	 */
+	synchronized void deposit() {
+		budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+	}
+
+	/**
+	 * Takes a token from the budget if there is one
+	 *
+	 * @return true if a token was taken
+	 */
+	private synchronized boolean withdraw() {
+		if (budget < 1) {
+			exhaustedCount.increment();
+			return false;
+		}
+
+		budget--;
+		return true;
+	}
+
+	/**
+	 * Decides whether a request can be retried after the given attempt, and
+	 * takes from the budget if so
+	 *
+	 * @param attempt
+	 *            - the number of the attempt that failed, starting from 1
+	 * @return true if the request should be retried
+	 */
+	boolean tryRetry(int attempt) {
+		if (attempt >= maxAttempts || !withdraw())
+			return false;
+
+		retryCount.increment();
+		return true;
+	}
+
+	/**
+	 * Decides whether a hedged copy of a request can be sent, and takes from
+	 * the budget if so
+	 *
+	 * @return true if a hedged request should be sent
+	 */
+	boolean tryHedge() {
+		if (!hedging || !withdraw())
+			return false;
+
+		hedgeCount.increment();
+		return true;
+	}
+
+	/**
+	 * Gives a random delay to wait before retrying after the given attempt
+	 *
+	 * @param attempt
+	 *            - the number of the attempt that failed, starting from 1
+	 * @return the delay in milliseconds
+	 */
+	long delayAfter(int attempt) {
+		long bound = Math.min(MAX_DELAY, baseDelay << Math.min(attempt - 1, 16));
+		return ThreadLocalRandom.current().nextLong(bound + 1);
+	}
+
+	/**
+	 * Sets whether hedged requests are sent
+	 *
+	 * @param hedging
+	 *            - true to enable hedging
+	 */
+	public void setHedging(boolean hedging) {
+		this.hedging = hedging;
+	}
+
+	/**
+	 * Gets whether hedged requests are sent
+	 *
+	 * @return boolean
+	 */
+	public boolean isHedging() {
+		return hedging;
+	}
+
+	/**
+	 * Gets the number of retries sent
+	 *
+	 * @return long
+	 */
+	public long getRetryCount() {
+		return retryCount.sum();
+	}
+
+	/**
+	 * Gets the number of hedged requests sent
+	 *
+	 * @return long
+	 */
+	public long getHedgeCount() {
+		return hedgeCount.sum();
+	}
+
+	/**
+	 * Gets the number of retries or hedged requests that weren't sent because
+	 * the budget was empty
+	 *
+	 * @return long
+	 */
+	public long getExhaustedCount() {
+		return exhaustedCount.sum();
+	}
+}
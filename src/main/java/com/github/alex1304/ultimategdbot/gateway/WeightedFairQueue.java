@@ -0,0 +1,123 @@
+package com.github.alex1304.ultimategdbot.gateway;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking queue of tasks with one FIFO per {@link RequestPriority}. Tasks are
+ * taken following smooth weighted round-robin: among the classes that have
+ * waiting tasks, each one is picked in proportion to its weight, and picks of
+ * the same class are spread out rather than grouped. A class alone in the
+ * queue gets every pick, so no thread stays idle while there is work.
+ *
+ * @author Alex1304
+ */
+class WeightedFairQueue {
+
+	private static final RequestPriority[] CLASSES = RequestPriority.values();
+
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final ArrayDeque<Runnable>[] queues;
+	private final int[] currentWeights;
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	WeightedFairQueue() {
+		this.lock = new ReentrantLock();
+		this.notEmpty = lock.newCondition();
+		this.queues = new ArrayDeque[CLASSES.length];
+		this.currentWeights = new int[CLASSES.length];
+
+		for (int i = 0 ; i < CLASSES.length ; i++)
+			queues[i] = new ArrayDeque<>();
+	}
+
+	/**
+	 * Adds a task to the queue of the given class
+	 *
+	 * @param priority
+	 *            - the class of the task
+	 * @param task
+	 *            - the task
+	 */
+	void add(RequestPriority priority, Runnable task) {
+		lock.lock();
+		try {
+			queues[priority.ordinal()].add(task);
+			size++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the next task, waiting for one if the queue is empty
+	 *
+	 * @return Runnable
+	 * @throws InterruptedException
+	 *             if the thread is interrupted while waiting
+	 */
+	Runnable take() throws InterruptedException {
+		lock.lock();
+		try {
+			while (size == 0)
+				notEmpty.await();
+
+			int totalWeight = 0;
+			int best = -1;
+
+			for (int i = 0 ; i < CLASSES.length ; i++) {
+				// Idle classes don't accumulate credit
+				if (queues[i].isEmpty()) {
+					currentWeights[i] = 0;
+					continue;
+				}
+
+				currentWeights[i] += CLASSES[i].getWeight();
+				totalWeight += CLASSES[i].getWeight();
+
+				if (best < 0 || currentWeights[i] > currentWeights[best])
+					best = i;
+			}
+
+			currentWeights[best] -= totalWeight;
+			size--;
+			return queues[best].poll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of tasks waiting in the queue of the given class
+	 *
+	 * @param priority
+	 *            - the class
+	 * @return int
+	 */
+	int size(RequestPriority priority) {
+		lock.lock();
+		try {
+			return queues[priority.ordinal()].size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of tasks waiting in all queues
+	 *
+	 * @return int
+	 */
+	int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -8,12 +8,15 @@ import java.util.TreeMap;
 
 import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
+import com.github.alex1304.ultimategdbot.exceptions.GDServersUnavailableException;
 import com.github.alex1304.ultimategdbot.exceptions.ModuleUnavailableException;
+import com.github.alex1304.ultimategdbot.gateway.CircuitOpenException;
 import com.github.alex1304.ultimategdbot.modules.Module;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.about.AboutCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.account.AccountCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.checkmod.CheckModCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.daily_weekly.DailyWeeklyCommand;
+import com.github.alex1304.ultimategdbot.modules.commands.impl.featuredinfo.FeaturedIndex;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.featuredinfo.FeaturedInfoCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.gdevents.GDEventsCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.help.HelpCommand;
@@ -24,6 +27,7 @@ import com.github.alex1304.ultimategdbot.modules.commands.impl.modlist.ModListCo
 import com.github.alex1304.ultimategdbot.modules.commands.impl.modules.ModulesCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.profile.ProfileCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.pushevent.PushEventCommand;
+import com.github.alex1304.ultimategdbot.modules.commands.impl.replayevents.ReplayEventsCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.restart.RestartCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.setup.SetupCommand;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.shutdown.ShutdownCommand;
@@ -49,21 +53,29 @@ public class CommandsModule implements Module {
 	private Map<String, Command> commandMap;
 	
 	private boolean isEnabled;
+	
+	private FeaturedIndex featuredIndex;
 
 	public CommandsModule() {
 		this.isEnabled = false;
 		this.commandMap = new TreeMap<>();
+		this.featuredIndex = new FeaturedIndex();
+		featuredIndex.setProbes(Integer.parseInt(UltimateGDBot.property("ultimategdbot.featured_index.probes")));
 		registerCommands();
 	}
 
 	@Override
 	public void start() {
 		isEnabled = true;
+		long crawlPeriod = Long.parseLong(UltimateGDBot.property("ultimategdbot.featured_index.crawl_period"));
+		if (crawlPeriod > 0)
+			featuredIndex.startCrawler(crawlPeriod);
 	}
 
 	@Override
 	public void stop() {
 		isEnabled = false;
+		featuredIndex.stopCrawler();
 	}
 
 	/**
@@ -92,6 +104,7 @@ public class CommandsModule implements Module {
 		registerCommand("daily", new DailyWeeklyCommand(false));
 		registerCommand("weekly", new DailyWeeklyCommand(true));
 		registerCommand("pushevent", new PushEventCommand());
+		registerCommand("replayevents", new ReplayEventsCommand());
 		registerCommand("checkmod", new CheckModCommand());
 		registerCommand("modlist", new ModListCommand());
 		registerCommand("about", new AboutCommand());
@@ -100,7 +113,7 @@ public class CommandsModule implements Module {
 		registerCommand("shutdown", new ShutdownCommand());
 		registerCommand("system", new SystemCommand());
 		registerCommand("levelsby", new LevelsByCommand());
-		registerCommand("featuredinfo", new FeaturedInfoCommand());
+		registerCommand("featuredinfo", new FeaturedInfoCommand(featuredIndex));
 	}
 	
 	/**
@@ -124,6 +137,8 @@ public class CommandsModule implements Module {
 					cmd.runCommand(event, args);
 			} catch (CommandFailedException e) {
 				BotUtils.sendMessage(event.getChannel(), Emojis.CROSS + " " + e.getMessage());
+			} catch (CircuitOpenException e) {
+				BotUtils.sendMessage(event.getChannel(), Emojis.CROSS + " " + new GDServersUnavailableException().getMessage());
 			} catch (DiscordException e) {
 				BotUtils.sendMessage(event.getChannel(), Emojis.CROSS + " Sorry, an error occured"
 						+ " while running the command.\n```\n" + e.getErrorMessage() + "\n```");
@@ -49,9 +49,9 @@ public class AccountCommand implements Command {
 		if (!UltimateGDBot.isModuleAvailable("reply"))
 			throw new CommandFailedException("This command is temporarily unavailable. Try again later.");
 
-		GDUser botUser = (GDUser) UltimateGDBot.cache()
-				.readAndWriteIfNotExists("gd.user." + UltimateGDBot.gdClient().getAccountID(), () -> 
-				UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(UltimateGDBot.gdClient().getAccountID())));
+		GDUser botUser = UltimateGDBot.gdUserCache()
+				.readAndWriteIfNotExists(UltimateGDBot.gdClient().getAccountID(), () -> 
+				UltimateGDBot.gdGateway().fetch(new GDUserHttpRequest(UltimateGDBot.gdClient().getAccountID())));
 		
 		if (botUser == null || botUser.getName().isEmpty())
 			throw new CommandFailedException("This command is disabled because the bot's account is unavailable on Geometry Dash (failed to fetch user with accountID " + UltimateGDBot.gdClient().getAccountID() + ")");
@@ -83,7 +83,7 @@ public class AccountCommand implements Command {
 				
 				GDComponentList<GDUserPreview> results = (GDComponentList<GDUserPreview>) UltimateGDBot.cache()
 						.readAndWriteIfNotExists("gd.usersearch." + username, () -> 
-								UltimateGDBot.gdClient().fetch(new GDUserSearchHttpRequest(username, 0)));
+								UltimateGDBot.gdGateway().fetch(new GDUserSearchHttpRequest(username, 0)));
 				
 				if (results == null || results.isEmpty()) {
 					rerunCmd.run();
@@ -99,9 +99,9 @@ public class AccountCommand implements Command {
 				rerunCmd.run();
 			});
 		} else  {
-			GDUser user = (GDUser) UltimateGDBot.cache()
-					.readAndWriteIfNotExists("gd.user." + us.getGdUserID(), () -> 
-							UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(us.getGdUserID())));
+			GDUser user = UltimateGDBot.gdUserCache()
+					.readAndWriteIfNotExists(us.getGdUserID(), () -> 
+							UltimateGDBot.gdGateway().fetch(new GDUserHttpRequest(us.getGdUserID())));
 			
 			if (user == null) {
 				menuContent.append(":warning: You seem to be linked to a Geometry Dash account, but I can't find "
@@ -125,12 +125,12 @@ public class AccountCommand implements Command {
 					
 					menu.addSubCommand("done", (event0, args0) -> {
 						try {
-							GDComponentList<GDMessage> inbox = UltimateGDBot.gdClient().fetch(new GDMessageListHttpRequest(0));
+							GDComponentList<GDMessage> inbox = UltimateGDBot.gdGateway().fetch(new GDMessageListHttpRequest(0));
 							boolean isVerified = inbox.stream()
 									.anyMatch(x -> {
 										if (x.getSenderID() == us.getGdUserID() && x.getSubject().equalsIgnoreCase("confirm")) {
 											try {
-												GDMessage m = UltimateGDBot.gdClient().fetch(new GDMessageReadHttpRequest(x.getMessageID()));
+												GDMessage m = UltimateGDBot.gdGateway().fetch(new GDMessageReadHttpRequest(x.getMessageID()));
 												return m.getBody().equals(us.getConfirmationToken());
 											} catch (GDAPIException e) {
 												return false;
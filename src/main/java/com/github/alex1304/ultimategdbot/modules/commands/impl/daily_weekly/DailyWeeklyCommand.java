@@ -40,7 +40,7 @@ public class DailyWeeklyCommand implements Command {
 		BotUtils.typing(event.getChannel(), true);
 		
 		try {
-			tl = UltimateGDBot.gdClient().fetch(new GDTimelyLevelHttpRequest(weekly, UltimateGDBot.gdClient()));
+			tl = UltimateGDBot.gdGateway().fetch(new GDTimelyLevelHttpRequest(weekly, UltimateGDBot.gdClient()));
 		} catch (GDAPIException e) {
 			throw new GDServersUnavailableException(e);
 		}
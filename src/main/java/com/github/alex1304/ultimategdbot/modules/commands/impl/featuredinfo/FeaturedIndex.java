@@ -0,0 +1,355 @@
+package com.github.alex1304.ultimategdbot.modules.commands.impl.featuredinfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.alex1304.jdash.api.request.GDLevelSearchHttpRequest;
+import com.github.alex1304.jdash.component.GDComponentList;
+import com.github.alex1304.jdash.component.GDLevelPreview;
+import com.github.alex1304.jdash.util.Constants;
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
+import com.github.alex1304.ultimategdbot.exceptions.GDServersUnavailableException;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
+import com.github.alex1304.ultimategdbot.utils.CacheItemSupplier;
+import com.github.alex1304.ultimategdbot.utils.GDLevelSearchBuilder;
+
+/**
+ * Index of the Featured section, telling on which page levels with a given
+ * featured score are. Levels are sorted by decreasing featured score in that
+ * section, so knowing the highest score of each page is enough to guess the
+ * page of any level.
+ *
+ * The index is filled by the pages fetched to answer commands, and by a
+ * background crawler that goes through the whole section again and again, one
+ * page at a time. As new levels get featured, pages shift and the index gets
+ * slightly out of date, so the guessed page is always checked and the
+ * neighbouring pages are tried if needed.
+ *
+ * Pages are kept in cache for a short time, so concurrent lookups of levels
+ * on the same page share a single request.
+ *
+ * @author Alex1304
+ */
+public class FeaturedIndex {
+
+	public static final int START_PAGE = 10_000;
+	private static final long PAGE_LIFETIME = 60_000;
+	private static final int MAX_WALK = 10;
+
+	private final TreeMap<Long, Integer> pageByTopScore;
+	private final Map<Integer, Long> topScoreByPage;
+	private Timer crawlTimer;
+	private int nextCrawledPage;
+	private volatile int probes;
+
+	public FeaturedIndex() {
+		this.pageByTopScore = new TreeMap<>();
+		this.topScoreByPage = new HashMap<>();
+		this.probes = 1;
+	}
+
+	/**
+	 * Finds the position of a level in the Featured section
+	 *
+	 * @param levelID
+	 *            - the ID of the level
+	 * @param score
+	 *            - the featured score of the level
+	 * @return the position, or null if the level isn't in the section
+	 * @throws CommandFailedException
+	 *             if the Geometry Dash servers couldn't be reached
+	 */
+	public FeaturedLevel locate(long levelID, long score) throws CommandFailedException {
+		int page = guessPage(score);
+
+		if (page >= 0) {
+			FeaturedLevel position = walk(levelID, score, page);
+			if (position != null)
+				return position;
+		}
+
+		// The index is empty or too out of date, search the whole section
+		return walk(levelID, score, searchPage(levelID, score));
+	}
+
+	/**
+	 * Guesses the page of a level from the index
+	 *
+	 * @return the page, or -1 if the index knows nothing about that score
+	 */
+	private synchronized int guessPage(long score) {
+		Entry<Long, Integer> entry = pageByTopScore.ceilingEntry(score);
+		return entry == null ? -1 : entry.getValue();
+	}
+
+	/**
+	 * Searches the page holding the given score, for when the index can't
+	 * help. Each round fetches several pages at once, evenly spaced in the
+	 * range of pages left, which narrows that range as many times. With a
+	 * single probe per round, this is a binary search. Probes that fail are
+	 * left out, the range is narrowed with the others, and the search only
+	 * fails if all probes of a round do.
+	 *
+	 * @return the page where the level was seen, or else the page where its
+	 *         score would be
+	 */
+	private int searchPage(long levelID, long score) throws CommandFailedException {
+		int min = 0, max = START_PAGE;
+
+		while (min < max) {
+			int k = Math.min(probes, max - min);
+			int[] pages = new int[k];
+			List<CompletableFuture<GDComponentList<GDLevelPreview>>> futures = new ArrayList<>();
+			CompletableFuture<Integer> found = new CompletableFuture<>();
+
+			for (int i = 0 ; i < k ; i++) {
+				int page = pages[i] = min + (int) ((long) (max - min) * (i + 1) / (k + 1));
+				// A failed probe gives null, so that it doesn't fail the whole round
+				futures.add(fetchPageAsync(page, RequestPriority.INTERACTIVE).handle((results, error) -> {
+					if (results != null && results.stream().anyMatch(l -> l.getId() == levelID))
+						found.complete(page);
+					return results;
+				}));
+			}
+
+			CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[k]));
+
+			// Stops as soon as a probe has the level, without waiting for the others
+			CompletableFuture.anyOf(found, all).join();
+
+			if (found.isDone())
+				return found.join();
+
+			if (futures.stream().allMatch(f -> f.join() == null))
+				throw new GDServersUnavailableException();
+
+			int newMin = min, newMax = max;
+
+			for (int i = 0 ; i < k ; i++) {
+				GDComponentList<GDLevelPreview> results = futures.get(i).join();
+
+				if (results == null)
+					continue;
+
+				if (results.isEmpty() || score > results.get(0).getFeaturedScore()) {
+					newMax = pages[i];
+					break;
+				} else if (score < results.get(results.size() - 1).getFeaturedScore())
+					newMin = pages[i] + 1;
+				else
+					return pages[i];
+			}
+
+			min = newMin;
+			max = newMax;
+		}
+
+		return min;
+	}
+
+	/**
+	 * Looks for the level from the given page, moving to the previous or next
+	 * pages depending on the scores found
+	 *
+	 * @return the position, or null if the level couldn't be found
+	 */
+	private FeaturedLevel walk(long levelID, long score, int page) throws CommandFailedException {
+		int direction = 0;
+
+		for (int i = 0 ; i < MAX_WALK && page >= 0 ; i++) {
+			GDComponentList<GDLevelPreview> results = fetchPage(page, RequestPriority.INTERACTIVE);
+
+			for (int j = 0 ; j < results.size() ; j++)
+				if (results.get(j).getId() == levelID)
+					return new FeaturedLevel(page, j, results.get(j));
+
+			int move;
+
+			if (results.isEmpty() || score > results.get(0).getFeaturedScore())
+				move = -1;
+			else if (score < results.get(results.size() - 1).getFeaturedScore())
+				move = 1;
+			// Levels with the same score may span several pages
+			else if (score == results.get(0).getFeaturedScore() && direction <= 0)
+				move = -1;
+			else if (score == results.get(results.size() - 1).getFeaturedScore() && direction >= 0)
+				move = 1;
+			else
+				return null;
+
+			// Going back and forth means the level isn't there
+			if (move == -direction)
+				return null;
+
+			direction = move;
+			page += move;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets a page of the Featured section, from cache if it was fetched
+	 * recently
+	 *
+	 * @param page
+	 *            - the page number, starting from 0
+	 * @param priority
+	 *            - the priority of the request, if the page isn't in cache
+	 * @return the levels in the page, empty if the page is beyond the end of
+	 *         the section
+	 * @throws CommandFailedException
+	 *             if the Geometry Dash servers couldn't be reached
+	 */
+	@SuppressWarnings("unchecked")
+	public GDComponentList<GDLevelPreview> fetchPage(int page, RequestPriority priority) throws CommandFailedException {
+		GDComponentList<GDLevelPreview> results = (GDComponentList<GDLevelPreview>) UltimateGDBot.cache()
+				.readAndWriteIfNotExists("gd.featured." + page, loader(page, priority), PAGE_LIFETIME);
+
+		if (results == null)
+			throw new GDServersUnavailableException();
+
+		return results;
+	}
+
+	/**
+	 * Same as {@link #fetchPage(int, RequestPriority)}, but doesn't block the
+	 * calling thread. The returned future completes exceptionally if the
+	 * Geometry Dash servers couldn't be reached.
+	 *
+	 * @param page
+	 *            - the page number, starting from 0
+	 * @param priority
+	 *            - the priority of the request, if the page isn't in cache
+	 * @return CompletableFuture&lt;GDComponentList&lt;GDLevelPreview&gt;&gt;
+	 */
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<GDComponentList<GDLevelPreview>> fetchPageAsync(int page, RequestPriority priority) {
+		return UltimateGDBot.cache()
+				.readAndWriteIfNotExistsAsync("gd.featured." + page, loader(page, priority), PAGE_LIFETIME)
+				.thenApply(results -> (GDComponentList<GDLevelPreview>) results);
+	}
+
+	private CacheItemSupplier<Object> loader(int page, RequestPriority priority) {
+		return () -> {
+			GDComponentList<GDLevelPreview> fetched = UltimateGDBot.gdGateway().fetch(request(page), priority);
+			if (fetched == null)
+				fetched = new GDComponentList<>();
+			update(page, fetched);
+			return fetched;
+		};
+	}
+
+	private static GDLevelSearchHttpRequest request(int page) {
+		GDLevelSearchBuilder lsb = new GDLevelSearchBuilder();
+		lsb.setType(Constants.LEVEL_SEARCH_TYPE_FEATURED);
+		lsb.setPage(page);
+		lsb.setKeywords("-");
+		return lsb.build();
+	}
+
+	/**
+	 * Updates the index with a freshly fetched page
+	 */
+	private synchronized void update(int page, GDComponentList<GDLevelPreview> results) {
+		Long oldTopScore = topScoreByPage.remove(page);
+		if (oldTopScore != null)
+			pageByTopScore.remove(oldTopScore, page);
+
+		if (results.isEmpty())
+			return;
+
+		long topScore = results.get(0).getFeaturedScore();
+		topScoreByPage.put(page, topScore);
+		// When pages share the same top score, the level may be on the first one
+		pageByTopScore.merge(topScore, page, Math::min);
+	}
+
+	/**
+	 * Starts crawling the Featured section in the background, one page at a
+	 * time
+	 *
+	 * @param period
+	 *            - the time between two pages, in milliseconds
+	 */
+	public synchronized void startCrawler(long period) {
+		if (crawlTimer != null)
+			return;
+
+		this.crawlTimer = new Timer("featured-index-crawler", true);
+		crawlTimer.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				if (UltimateGDBot.gdGateway().isSuspended())
+					return;
+
+				try {
+					crawl();
+				} catch (CommandFailedException e) {
+					// Servers unavailable, the same page is tried again next time
+				} catch (RuntimeException e) {
+					UltimateGDBot.logException(e);
+				}
+			}
+
+		}, 0, period);
+	}
+
+	/**
+	 * Stops the background crawler
+	 */
+	public synchronized void stopCrawler() {
+		if (crawlTimer == null)
+			return;
+
+		crawlTimer.cancel();
+		this.crawlTimer = null;
+	}
+
+	private void crawl() throws CommandFailedException {
+		GDComponentList<GDLevelPreview> results = fetchPage(nextCrawledPage, RequestPriority.BULK);
+		// Starts over from the top once the end of the section is reached
+		nextCrawledPage = results.isEmpty() ? 0 : nextCrawledPage + 1;
+	}
+
+	/**
+	 * Sets the number of pages fetched at once when searching for a level
+	 * without the help of the index. It is capped below the maximum number of
+	 * concurrent requests of the gateway, so that a search never takes all of
+	 * them.
+	 *
+	 * @param probes
+	 *            - the number of pages fetched at once
+	 */
+	public void setProbes(int probes) {
+		this.probes = Math.max(1, Math.min(probes, UltimateGDBot.gdGateway().getMaxConcurrency() - 1));
+	}
+
+	/**
+	 * Gets the number of pages fetched at once when searching for a level
+	 * without the help of the index
+	 *
+	 * @return int
+	 */
+	public int getProbes() {
+		return probes;
+	}
+
+	/**
+	 * Gets the number of pages known by the index
+	 *
+	 * @return int
+	 */
+	public synchronized int size() {
+		return topScoreByPage.size();
+	}
+}
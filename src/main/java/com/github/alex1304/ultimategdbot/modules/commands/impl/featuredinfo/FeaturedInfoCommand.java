@@ -3,30 +3,29 @@ package com.github.alex1304.ultimategdbot.modules.commands.impl.featuredinfo;
 import java.util.List;
 
 import com.github.alex1304.jdash.api.request.GDLevelHttpRequest;
-import com.github.alex1304.jdash.component.GDComponentList;
 import com.github.alex1304.jdash.component.GDLevel;
-import com.github.alex1304.jdash.component.GDLevelPreview;
-import com.github.alex1304.jdash.exceptions.GDAPIException;
-import com.github.alex1304.jdash.util.Constants;
 import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
-import com.github.alex1304.ultimategdbot.exceptions.GDServersUnavailableException;
 import com.github.alex1304.ultimategdbot.exceptions.InvalidCommandArgsException;
 import com.github.alex1304.ultimategdbot.modules.commands.Command;
 import com.github.alex1304.ultimategdbot.utils.BotUtils;
-import com.github.alex1304.ultimategdbot.utils.GDLevelSearchBuilder;
 
 import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
 
 /**
  * Allows users to browse the Featured levels in the game. They can find info on the placement, 
- * and quickly see the position of a level in the featured section.
+ * and quickly see the position of a level in the featured section. Positions are found
+ * with the help of a {@link FeaturedIndex}.
  *
  * @author Alex1304
  */
 public class FeaturedInfoCommand implements Command {
 	
-	public static final int START_PAGE = 10_000;
+	private final FeaturedIndex index;
+	
+	public FeaturedInfoCommand(FeaturedIndex index) {
+		this.index = index;
+	}
 
 	@Override
 	public void runCommand(MessageReceivedEvent event, List<String> args) throws CommandFailedException {
@@ -44,9 +43,9 @@ public class FeaturedInfoCommand implements Command {
 		
 		final long fLevelID = levelID;
 		
-		GDLevel lvl = (GDLevel) UltimateGDBot.cache()
-				.readAndWriteIfNotExists("gd.level." + levelID, () ->
-						UltimateGDBot.gdClient().fetch(new GDLevelHttpRequest(fLevelID)));
+		GDLevel lvl = UltimateGDBot.gdLevelCache()
+				.readAndWriteIfNotExists(levelID, () ->
+						UltimateGDBot.gdGateway().fetch(new GDLevelHttpRequest(fLevelID)));
 		
 		if (lvl == null)
 			throw new CommandFailedException("Level not found");
@@ -54,52 +53,12 @@ public class FeaturedInfoCommand implements Command {
 		if (lvl.getFeaturedScore() == 0)
 			throw new CommandFailedException("This level isn't in the Featured section.");
 		
-		FeaturedLevel flvl = null;
-		
-		long score = lvl.getFeaturedScore();
-		int page = START_PAGE;
-		boolean linearMode = false;
-		int pageMin = 0, pageMax = Integer.MAX_VALUE;
-		
 		BotUtils.typing(event.getChannel(), true);
 		
-		while (flvl == null) {
-			GDLevelSearchBuilder lsb = new GDLevelSearchBuilder();
-			lsb.setType(Constants.LEVEL_SEARCH_TYPE_FEATURED);
-			lsb.setPage(page);
-			lsb.setKeywords("-");
-			
-			System.out.println("Viewing page: " + page);
-			
-			try {
-				GDComponentList<GDLevelPreview> pageResults = UltimateGDBot.gdClient().fetch(lsb.build());
-				
-				if (!linearMode && (pageResults == null || pageResults.isEmpty() || score >= pageResults.get(0).getFeaturedScore())) {
-					pageMax = page;
-					page -= Math.max(1, (pageMax - pageMin) / 2);
-				} else if (!linearMode && (score < pageResults.get(pageResults.size() - 1).getFeaturedScore())) {
-					pageMin = page;
-					page += Math.max(1, (pageMax - pageMin) / 2);
-				} else {
-					for (int i = 0 ; flvl == null && i < pageResults.size() ; i++) {
-						GDLevelPreview i_ = pageResults.get(i);
-						if (i_.getId() == lvl.getId())
-							flvl = new FeaturedLevel(page, i, i_);
-					}
-					
-					if (flvl == null) {
-						page++;
-						linearMode = true;
-					}
-				}
-				
-				if (page < 0 || (linearMode && (pageResults == null || pageResults.isEmpty())))
-					throw new CommandFailedException("This level could not be found in the Featured section.");
-				
-			} catch (GDAPIException e) {
-				throw new GDServersUnavailableException();
-			}
-		}
+		FeaturedLevel flvl = index.locate(lvl.getId(), lvl.getFeaturedScore());
+		
+		if (flvl == null)
+			throw new CommandFailedException("This level could not be found in the Featured section.");
 
 		BotUtils.typing(event.getChannel(), false);
 		
@@ -108,76 +67,5 @@ public class FeaturedInfoCommand implements Command {
 				+ " in page **" + (flvl.getPage() + 1) + "** of the Featured section at position " + (flvl.getPosition() + 1));
 		
 	}
-	
-	/**
-	 * Object representation of a featured level
-	 *
-	 * @author Alex1304
-	 */
-	class FeaturedLevel {
-		private int page;
-		private int position;
-		private GDLevelPreview level;
-		
-		public FeaturedLevel(int page, int position, GDLevelPreview level) {
-			this.page = page;
-			this.position = position;
-			this.level = level;
-		}
-
-		/**
-		 * Gets the page
-		 *
-		 * @return int
-		 */
-		public int getPage() {
-			return page;
-		}
-		
-		/**
-		 * Gets the position
-		 *
-		 * @return int
-		 */
-		public int getPosition() {
-			return position;
-		}
-		
-		/**
-		 * Sets the page
-		 *
-		 * @param page - int
-		 */
-		public void setPage(int page) {
-			this.page = page;
-		}
-		
-		/**
-		 * Sets the position
-		 *
-		 * @param position - int
-		 */
-		public void setPosition(int position) {
-			this.position = position;
-		}
-
-		/**
-		 * Gets the level
-		 *
-		 * @return GDLevelPreview
-		 */
-		public GDLevelPreview getLevel() {
-			return level;
-		}
-
-		/**
-		 * Sets the level
-		 *
-		 * @param level - GDLevelPreview
-		 */
-		public void setLevel(GDLevelPreview level) {
-			this.level = level;
-		}
-	}
 
 }
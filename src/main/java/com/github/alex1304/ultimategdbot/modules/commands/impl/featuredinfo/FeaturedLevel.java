@@ -0,0 +1,74 @@
+package com.github.alex1304.ultimategdbot.modules.commands.impl.featuredinfo;
+
+import com.github.alex1304.jdash.component.GDLevelPreview;
+
+/**
+ * Object representation of a featured level
+ *
+ * @author Alex1304
+ */
+public class FeaturedLevel {
+	private int page;
+	private int position;
+	private GDLevelPreview level;
+	
+	public FeaturedLevel(int page, int position, GDLevelPreview level) {
+		this.page = page;
+		this.position = position;
+		this.level = level;
+	}
+
+	/**
+	 * Gets the page
+	 *
+	 * @return int
+	 */
+	public int getPage() {
+		return page;
+	}
+	
+	/**
+	 * Gets the position
+	 *
+	 * @return int
+	 */
+	public int getPosition() {
+		return position;
+	}
+	
+	/**
+	 * Sets the page
+	 *
+	 * @param page - int
+	 */
+	public void setPage(int page) {
+		this.page = page;
+	}
+	
+	/**
+	 * Sets the position
+	 *
+	 * @param position - int
+	 */
+	public void setPosition(int position) {
+		this.position = position;
+	}
+
+	/**
+	 * Gets the level
+	 *
+	 * @return GDLevelPreview
+	 */
+	public GDLevelPreview getLevel() {
+		return level;
+	}
+
+	/**
+	 * Sets the level
+	 *
+	 * @param level - GDLevelPreview
+	 */
+	public void setLevel(GDLevelPreview level) {
+		this.level = level;
+	}
+}
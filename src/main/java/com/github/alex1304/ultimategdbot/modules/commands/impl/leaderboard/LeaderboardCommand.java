@@ -2,7 +2,8 @@ package com.github.alex1304.ultimategdbot.modules.commands.impl.leaderboard;
 
 import java.util.EnumSet;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -12,6 +13,7 @@ import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.dbentities.UserSettings;
 import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
 import com.github.alex1304.ultimategdbot.exceptions.UnknownUserException;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
 import com.github.alex1304.ultimategdbot.modules.commands.Command;
 import com.github.alex1304.ultimategdbot.modules.commands.CommandsModule;
 import com.github.alex1304.ultimategdbot.modules.commands.NavigationMenu;
@@ -57,28 +59,22 @@ public class LeaderboardCommand implements Command {
 		
 		if (entries == null) {
 			BotUtils.typing(event.getChannel(), true);
-			this.entries = usList.parallelStream()
-					.filter(x -> usersInGuild.stream().anyMatch(user -> user.getLongID() == x.getUserID()))
-					.map(x -> {
-						GDUser gu = (GDUser) UltimateGDBot.cache()
-								.readAndWriteIfNotExists("gd.user." + x.getGdUserID(), () ->
-										UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(x.getGdUserID())));
-						
-						if (gu == null)
-							return null;
-						
-						IUser du = null;
-						
-						try {
-							du = usersInGuild.stream()
-								.filter(user -> user.getLongID() == x.getUserID())
-								.findAny().get();
-						} catch (NoSuchElementException e) {
-							return null;
-						}
-						
-						return new LeaderboardEntry(emoji, statFunc.apply(gu), gu, du);
-					}).collect(Collectors.toList());
+			Map<Long, IUser> membersByID = usersInGuild.stream()
+					.collect(Collectors.toMap(IUser::getLongID, user -> user, (u1, u2) -> u1));
+			
+			// Fetches are sent through the gateway all at once, without holding a thread per user
+			List<CompletableFuture<LeaderboardEntry>> pending = usList.stream()
+					.filter(x -> membersByID.containsKey(x.getUserID()))
+					.map(x -> UltimateGDBot.gdUserCache()
+							.readAndLoadIfNotExistsAsync(x.getGdUserID(), () ->
+									UltimateGDBot.gdGateway().fetchAsync(new GDUserHttpRequest(x.getGdUserID()), RequestPriority.BULK))
+							.handle((gu, error) -> gu == null ? null
+									: new LeaderboardEntry(emoji, statFunc.apply(gu), gu, membersByID.get(x.getUserID()))))
+					.collect(Collectors.toList());
+			
+			this.entries = pending.stream()
+					.map(CompletableFuture::join)
+					.collect(Collectors.toList());
 			BotUtils.typing(event.getChannel(), false);
 		}
 		
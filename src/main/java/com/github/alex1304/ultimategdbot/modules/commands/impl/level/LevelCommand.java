@@ -3,6 +3,8 @@ package com.github.alex1304.ultimategdbot.modules.commands.impl.level;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -12,6 +14,7 @@ import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
 import com.github.alex1304.ultimategdbot.exceptions.GDServersUnavailableException;
 import com.github.alex1304.ultimategdbot.exceptions.InvalidCommandArgsException;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
 import com.github.alex1304.ultimategdbot.modules.commands.Command;
 import com.github.alex1304.ultimategdbot.modules.commands.CommandsModule;
 import com.github.alex1304.ultimategdbot.modules.commands.NavigationMenu;
@@ -31,6 +34,10 @@ import sx.blah.discord.handle.obj.Permissions;
  */
 public class LevelCommand implements Command {
 	
+	private static final int MAX_PREFETCHES_PER_USER = 2;
+	private static final int PAGE_SIZE = 10;
+	private static final Map<Long, Integer> PREFETCHES = new ConcurrentHashMap<>();
+	
 	private int page;
 	private Function<List<String>, GDLevelSearchBuilder> requestObject;
 	private BiFunction<MessageReceivedEvent, List<String>, CommandFailedException> checkArgsValidity;
@@ -63,8 +70,7 @@ public class LevelCommand implements Command {
 
 		final Procedure rollBackResults = () -> CommandsModule.executeCommand(this, event, args);
 		
-		String keywords = BotUtils.concatCommandArgs(args);
-		String cacheID = "gd.levelsearch." + keywords + page;
+		String cacheID = cacheID(args, page);
 
 		GDLevelSearchBuilder lsb = this.requestObject.apply(args);
 		lsb.setPage(this.page);
@@ -72,7 +78,7 @@ public class LevelCommand implements Command {
 		GDComponentList<GDLevelPreview> results = (GDComponentList<GDLevelPreview>) UltimateGDBot.cache()
 				.readAndWriteIfNotExists(cacheID, () -> {
 					BotUtils.typing(event.getChannel(), true);
-					return UltimateGDBot.gdClient().fetch(lsb.build());
+					return UltimateGDBot.gdGateway().fetch(lsb.build());
 				});
 		
 		if (results == null)
@@ -86,6 +92,12 @@ public class LevelCommand implements Command {
 			return;
 		}
 		
+		// The user is likely to move to the next or previous page, so they are loaded in advance
+		if (results.size() >= PAGE_SIZE)
+			prefetch(event, args, page + 1);
+		if (page > 0)
+			prefetch(event, args, page - 1);
+		
 		if (!UltimateGDBot.isModuleAvailable("reply")) {
 			EmbedObject em = GDUtils.levelListToEmbed(results, page);
 			em.description = "\nAbility to navigate through search results is currently unavailable. Sorry for the inconvenience.";
@@ -124,6 +136,37 @@ public class LevelCommand implements Command {
 		BotUtils.typing(event.getChannel(), false);
 	}
 	
+	private static String cacheID(List<String> args, int page) {
+		return "gd.levelsearch." + BotUtils.concatCommandArgs(args) + page;
+	}
+	
+	/**
+	 * Loads a page of results in cache in the background. Each user can only
+	 * have a few pages being loaded at once.
+	 *
+	 * The page is loaded with the INTERACTIVE priority: if the user moves to
+	 * that page before it is loaded, the command waits for this load instead
+	 * of sending its own request, so a lower priority would leave them stuck
+	 * behind background traffic. The limit per user keeps prefetches from
+	 * taking too large a share of that class.
+	 */
+	private void prefetch(MessageReceivedEvent event, List<String> args, int page) {
+		long userID = event.getAuthor().getLongID();
+		
+		if (PREFETCHES.merge(userID, 1, Integer::sum) > MAX_PREFETCHES_PER_USER) {
+			PREFETCHES.computeIfPresent(userID, (k, n) -> n == 1 ? null : n - 1);
+			return;
+		}
+		
+		GDLevelSearchBuilder lsb = this.requestObject.apply(args);
+		lsb.setPage(page);
+		
+		UltimateGDBot.cache()
+				.readAndWriteIfNotExistsAsync(cacheID(args, page), () ->
+						UltimateGDBot.gdGateway().fetch(lsb.build(), RequestPriority.INTERACTIVE))
+				.whenComplete((results, error) -> PREFETCHES.computeIfPresent(userID, (k, n) -> n == 1 ? null : n - 1));
+	}
+	
 	@Override
 	public EnumSet<Permissions> getPermissionsRequired() {
 		return EnumSet.of(Permissions.EMBED_LINKS, Permissions.USE_EXTERNAL_EMOJIS);
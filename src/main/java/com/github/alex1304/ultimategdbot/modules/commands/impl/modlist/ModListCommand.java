@@ -10,6 +10,7 @@ import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.dbentities.GDMod;
 import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
 import com.github.alex1304.ultimategdbot.exceptions.DatabaseFailureException;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
 import com.github.alex1304.ultimategdbot.modules.commands.Command;
 import com.github.alex1304.ultimategdbot.modules.commands.CommandsModule;
 import com.github.alex1304.ultimategdbot.modules.commands.NavigationMenu;
@@ -52,9 +53,9 @@ public class ModListCommand implements Command {
 			mods = mods.stream()
 					.map(m -> {
 						if (m.getUsername().isEmpty()) {
-							GDUser user = (GDUser) UltimateGDBot.cache()
-									.readAndWriteIfNotExists("gd.user." + m.getAccountID(), () ->
-									UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(m.getAccountID())));
+							GDUser user = UltimateGDBot.gdUserCache()
+									.readAndWriteIfNotExists(m.getAccountID(), () ->
+									UltimateGDBot.gdGateway().fetch(new GDUserHttpRequest(m.getAccountID()), RequestPriority.BULK));
 							if (user != null) {
 								m.setUsername(user.getName());
 								DatabaseUtils.save(m);
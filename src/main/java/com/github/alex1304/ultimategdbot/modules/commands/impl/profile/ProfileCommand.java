@@ -52,9 +52,9 @@ public class ProfileCommand implements Command {
 		
 		final long finalAccountID = accountID;
 		
-		GDUser user = (GDUser) UltimateGDBot.cache()
-				.readAndWriteIfNotExists("gd.user." + accountID, () -> 
-					UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(finalAccountID)));
+		GDUser user = UltimateGDBot.gdUserCache()
+				.readAndWriteIfNotExists(accountID, () -> 
+					UltimateGDBot.gdGateway().fetch(new GDUserHttpRequest(finalAccountID)));
 		
 		if (user == null)
 			throw new GDServersUnavailableException();
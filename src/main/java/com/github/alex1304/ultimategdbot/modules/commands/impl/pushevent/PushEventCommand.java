@@ -57,7 +57,7 @@ public class PushEventCommand implements Command {
 			final long fid = id;
 			GDComponentList<GDLevelPreview> lplist = (GDComponentList<GDLevelPreview>) UltimateGDBot.cache()
 					.readAndWriteIfNotExists("gd.levelsearch." + fid, () ->
-							UltimateGDBot.gdClient().fetch(new GDLevelSearchHttpRequest("" + fid, 0)));
+							UltimateGDBot.gdGateway().fetch(new GDLevelSearchHttpRequest("" + fid, 0)));
 			
 			if (lplist == null)
 				throw new GDServersUnavailableException();
@@ -82,7 +82,7 @@ public class PushEventCommand implements Command {
 			final long fid = id;
 			GDComponentList<GDLevelPreview> lplist = (GDComponentList<GDLevelPreview>) UltimateGDBot.cache()
 					.readAndWriteIfNotExists("gd.levelsearch." + fid, () ->
-							UltimateGDBot.gdClient().fetch(new GDLevelSearchHttpRequest("" + fid, 0)));
+							UltimateGDBot.gdGateway().fetch(new GDLevelSearchHttpRequest("" + fid, 0)));
 			
 			if (lplist == null)
 				throw new GDServersUnavailableException();
@@ -110,7 +110,7 @@ public class PushEventCommand implements Command {
 			final long fid = id;
 			GDComponentList<GDLevelPreview> lplist = (GDComponentList<GDLevelPreview>) UltimateGDBot.cache()
 					.readAndWriteIfNotExists("gd.levelsearch." + fid, () ->
-							UltimateGDBot.gdClient().fetch(new GDLevelSearchHttpRequest("" + fid, 0)));
+							UltimateGDBot.gdGateway().fetch(new GDLevelSearchHttpRequest("" + fid, 0)));
 			
 			if (lplist == null)
 				throw new GDServersUnavailableException();
@@ -122,7 +122,7 @@ public class PushEventCommand implements Command {
 		
 		im.addSubCommand("4", (event0, args0) -> {
 			try {
-				GDTimelyLevel tl = UltimateGDBot.gdClient().fetch(new GDTimelyLevelHttpRequest(false, UltimateGDBot.gdClient()));
+				GDTimelyLevel tl = UltimateGDBot.gdGateway().fetch(new GDTimelyLevelHttpRequest(false, UltimateGDBot.gdClient()));
 				
 				if (tl == null)
 					throw new CommandFailedException("Daily level unavailable");
@@ -135,7 +135,7 @@ public class PushEventCommand implements Command {
 		
 		im.addSubCommand("5", (event0, args0) -> {
 			try {
-				GDTimelyLevel tl = UltimateGDBot.gdClient().fetch(new GDTimelyLevelHttpRequest(true, UltimateGDBot.gdClient()));
+				GDTimelyLevel tl = UltimateGDBot.gdGateway().fetch(new GDTimelyLevelHttpRequest(true, UltimateGDBot.gdClient()));
 				
 				if (tl == null)
 					throw new CommandFailedException("Weekly demon unavailable");
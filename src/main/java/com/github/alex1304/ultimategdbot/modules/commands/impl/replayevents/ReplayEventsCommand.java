@@ -0,0 +1,64 @@
+package com.github.alex1304.ultimategdbot.modules.commands.impl.replayevents;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
+import com.github.alex1304.ultimategdbot.exceptions.InvalidCommandArgsException;
+import com.github.alex1304.ultimategdbot.exceptions.ModuleUnavailableException;
+import com.github.alex1304.ultimategdbot.modules.commands.Command;
+import com.github.alex1304.ultimategdbot.modules.gdevents.GDEventsModule;
+import com.github.alex1304.ultimategdbot.utils.BotRoles;
+import com.github.alex1304.ultimategdbot.utils.BotUtils;
+
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+
+/**
+ * Allows bot owner to send again the GD event notifications of a time range to
+ * the servers that didn't receive them
+ *
+ * @author Alex1304
+ */
+public class ReplayEventsCommand implements Command {
+
+	@Override
+	public void runCommand(MessageReceivedEvent event, List<String> args) throws CommandFailedException {
+		if (args.size() < 2)
+			throw new InvalidCommandArgsException("`" + event.getMessage().getContent() + " <from> <to>`, for example `"
+					+ event.getMessage().getContent() + " 2018-06-01T12:00 2018-06-01T18:00`");
+		
+		Timestamp from, to;
+		
+		try {
+			from = Timestamp.valueOf(LocalDateTime.parse(args.get(0)));
+			to = Timestamp.valueOf(LocalDateTime.parse(args.get(1)));
+		} catch (DateTimeParseException e) {
+			throw new CommandFailedException("Invalid date, expected a date like `2018-06-01T12:00`");
+		}
+		
+		if (from.after(to))
+			throw new CommandFailedException("The beginning of the time range must be before its end");
+		
+		GDEventsModule module;
+		
+		try {
+			module = (GDEventsModule) UltimateGDBot.getModule("gd_events");
+		} catch (ModuleUnavailableException e) {
+			throw new CommandFailedException("GD events are temporarily unavailable");
+		}
+		
+		int resumed = module.getEventJournal().replay(from, to);
+		
+		BotUtils.sendMessage(event.getChannel(), resumed == 0 ? "All notifications of this time range were already delivered."
+				: "Sending " + resumed + " notifications that weren't delivered. Servers that already received them won't get them twice.");
+	}
+
+	@Override
+	public EnumSet<BotRoles> getRolesRequired() {
+		return EnumSet.of(BotRoles.OWNER);
+	}
+}
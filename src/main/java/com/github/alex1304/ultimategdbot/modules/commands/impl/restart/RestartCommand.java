@@ -1,6 +1,7 @@
 package com.github.alex1304.ultimategdbot.modules.commands.impl.restart;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -40,6 +41,13 @@ public class RestartCommand implements Command {
 			BotUtils.sendMessage(event.getChannel(), "Restarting...");
 			UltimateGDBot.logInfo("Restarting...");
 			
+			// Must be written before the new process starts reading it
+			try {
+				UltimateGDBot.cache().saveSnapshot();
+			} catch (IOException e) {
+				UltimateGDBot.logException(e);
+			}
+			
 			final ProcessBuilder builder = new ProcessBuilder(command);
 			builder.redirectErrorStream(true);
 			builder.redirectOutput(new File(System.getProperty("user.dir") + File.separator + "restart_" + System.currentTimeMillis() + ".log"));
@@ -1,23 +1,51 @@
 package com.github.alex1304.ultimategdbot.modules.commands.impl.system;
 
+import java.io.ByteArrayInputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 import java.util.List;
 
+import com.github.alex1304.ultimategdbot.cache.Cache;
+import com.github.alex1304.ultimategdbot.cache.CacheStatsSnapshot;
+import com.github.alex1304.ultimategdbot.cache.OffHeapTier;
 import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.exceptions.CommandFailedException;
+import com.github.alex1304.ultimategdbot.exceptions.ModuleUnavailableException;
+import com.github.alex1304.ultimategdbot.gateway.AdaptiveRateLimiter;
+import com.github.alex1304.ultimategdbot.gateway.CircuitBreaker;
+import com.github.alex1304.ultimategdbot.gateway.EndpointMetrics;
+import com.github.alex1304.ultimategdbot.gateway.GDGateway;
+import com.github.alex1304.ultimategdbot.gateway.RequestOutcome;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
+import com.github.alex1304.ultimategdbot.gateway.RequestType;
+import com.github.alex1304.ultimategdbot.gateway.RetryPolicy;
 import com.github.alex1304.ultimategdbot.modules.commands.Command;
+import com.github.alex1304.ultimategdbot.modules.gdevents.GDEventsModule;
+import com.github.alex1304.ultimategdbot.modules.gdevents.PipelineStage;
+import com.github.alex1304.ultimategdbot.modules.gdevents.ScanEngine;
+import com.github.alex1304.ultimategdbot.modules.gdevents.ScheduledScan;
 import com.github.alex1304.ultimategdbot.utils.BotRoles;
 import com.github.alex1304.ultimategdbot.utils.BotUtils;
+import com.github.alex1304.ultimategdbot.utils.LatencyHistogram;
 import com.github.alex1304.ultimategdbot.utils.SystemUnit;
 
 import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+import sx.blah.discord.util.RequestBuffer;
 
 /**
- * Allows bot moderators to monitor the bot's system resources usage
+ * Allows bot moderators to monitor the bot's system resources usage. The
+ * owner can also see the cache statistics with the <code>cache</code>
+ * subcommand. The <code>requests</code> subcommand shows the response times
+ * of the Geometry Dash servers by type of request, and
+ * <code>requests json</code> gives them as a JSON file. The
+ * <code>events</code> subcommand shows how the GD event scans and the
+ * processing of GD events are doing.
  *
  * @author Alex1304
  */
@@ -25,6 +53,28 @@ public class SystemCommand implements Command {
 
 	@Override
 	public void runCommand(MessageReceivedEvent event, List<String> args) throws CommandFailedException {
+		if (!args.isEmpty() && args.get(0).equalsIgnoreCase("cache")) {
+			if (!BotRoles.isGranted(event.getAuthor(), event.getChannel(), BotRoles.OWNER))
+				throw new CommandFailedException("Only the bot owner can see cache statistics.");
+			BotUtils.sendMessage(event.getChannel(), cacheStats());
+			return;
+		}
+		
+		if (!args.isEmpty() && args.get(0).equalsIgnoreCase("requests")) {
+			EndpointMetrics metrics = UltimateGDBot.gdGateway().getEndpointMetrics();
+			if (args.size() > 1 && args.get(1).equalsIgnoreCase("json"))
+				RequestBuffer.request(() -> event.getChannel().sendFile("",
+						new ByteArrayInputStream(metrics.toJson().getBytes(StandardCharsets.UTF_8)), "gd_requests.json"));
+			else
+				BotUtils.sendMessage(event.getChannel(), requestStats(metrics));
+			return;
+		}
+		
+		if (!args.isEmpty() && args.get(0).equalsIgnoreCase("events")) {
+			BotUtils.sendMessage(event.getChannel(), eventStats());
+			return;
+		}
+		
 		System.gc();
 		
 		long total = Runtime.getRuntime().totalMemory();
@@ -41,6 +91,44 @@ public class SystemCommand implements Command {
 		sb.append("**Application memory usage:** " + SystemUnit.format(total - free) + " / " + SystemUnit.format(total)
 				+ " (" + String.format("%.2f", (total - free) * 100 / (double) total) + "%)\n");
 
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+			if (pool.getName().equals("direct"))
+				sb.append("**Direct memory usage:** " + SystemUnit.format(pool.getMemoryUsed()) + "\n");
+
+		sb.append("\n__**Garbage collection:**__\n\n");
+		
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			sb.append("**" + gc.getName() + ":** " + gc.getCollectionCount() + " collections, "
+					+ gc.getCollectionTime() + " ms total\n");
+
+		GDGateway gateway = UltimateGDBot.gdGateway();
+		AdaptiveRateLimiter limiter = gateway.getRateLimiter();
+		CircuitBreaker breaker = gateway.getCircuitBreaker();
+		RetryPolicy retryPolicy = gateway.getRetryPolicy();
+		
+		sb.append("\n__**Geometry Dash requests:**__\n\n");
+		sb.append("**In flight:** " + gateway.getInFlight() + " / " + gateway.getMaxConcurrency()
+				+ ", **queued:** " + gateway.getQueueDepth() + "\n");
+		sb.append("**Completed:** " + gateway.getCompletedCount() + ", **failed:** " + gateway.getFailedCount() + "\n");
+		sb.append(String.format("**Queue time:** mean %.0fms, p95 %.0fms, p99 %.0fms\n", gateway.getQueueTime().getMeanMillis(),
+				gateway.getQueueTime().getPercentileMillis(95), gateway.getQueueTime().getPercentileMillis(99)));
+		if (limiter != null)
+			sb.append(String.format("**Rate limit:** %.1f / %.1f requests per second, lowered %d times\n",
+					limiter.getRate(), limiter.getMaxRate(), limiter.getDecreaseCount()));
+		if (breaker != null)
+			sb.append("**Circuit breaker:** " + breaker.getState() + ", " + breaker.getRejectedCount() + " requests rejected\n");
+		if (retryPolicy != null)
+			sb.append("**Retries:** " + retryPolicy.getRetryCount() + " retries, " + retryPolicy.getHedgeCount()
+					+ " hedged requests, " + retryPolicy.getExhaustedCount() + " denied by the budget\n");
+		
+		for (RequestPriority priority : RequestPriority.values()) {
+			LatencyHistogram latency = gateway.getLatency(priority);
+			sb.append(String.format("**%s:** %d queued, %d sent, queue time p95 %.0fms, latency p50 %.0fms, p95 %.0fms\n",
+					priority, gateway.getQueueDepth(priority), latency.getCount(),
+					gateway.getQueueTime(priority).getPercentileMillis(95), latency.getPercentileMillis(50),
+					latency.getPercentileMillis(95)));
+		}
+
 		sb.append("\n__**CPU resources:**__\n\n");
 		
 		sb.append("**CPU cores available:** " + Runtime.getRuntime().availableProcessors() + "\n");
@@ -67,6 +155,93 @@ public class SystemCommand implements Command {
 		BotUtils.sendMessage(event.getChannel(), sb.toString());
 	}
 	
+	private String requestStats(EndpointMetrics metrics) {
+		StringBuffer sb = new StringBuffer();
+		
+		sb.append("__**Geometry Dash response times:**__\n```\n");
+		
+		for (RequestType type : RequestType.values()) {
+			LatencyHistogram all = metrics.getLatency(type);
+			if (all.getCount() == 0)
+				continue;
+			
+			sb.append(String.format("%s: %d requests, p50 %.0fms, p95 %.0fms, p99 %.0fms\n", type, all.getCount(),
+					all.getPercentileMillis(50), all.getPercentileMillis(95), all.getPercentileMillis(99)));
+			
+			for (RequestOutcome outcome : RequestOutcome.values()) {
+				LatencyHistogram latency = metrics.getLatency(type, outcome);
+				if (latency.getCount() > 0)
+					sb.append(String.format("  %s %d, p50 %.0fms, p95 %.0fms\n", outcome.name().toLowerCase(),
+							latency.getCount(), latency.getPercentileMillis(50), latency.getPercentileMillis(95)));
+			}
+		}
+		
+		sb.append("```");
+		return sb.toString();
+	}
+	
+	private String eventStats() throws CommandFailedException {
+		GDEventsModule gdEvents;
+		try {
+			gdEvents = (GDEventsModule) UltimateGDBot.getModule("gd_events");
+		} catch (ModuleUnavailableException e) {
+			throw new CommandFailedException("GD events are temporarily unavailable.");
+		}
+		
+		StringBuffer sb = new StringBuffer();
+		ScanEngine scanEngine = gdEvents.getScanEngine();
+		
+		if (scanEngine != null) {
+			sb.append("__**GD event scans:**__\n\n");
+			
+			for (ScheduledScan scan : scanEngine.getScans())
+				sb.append(String.format("**%s:** %d runs, %d failed, %d skipped by overruns, last run took %.0fms and started %.0fms late\n",
+						scan.getName(), scan.getRunCount(), scan.getFailureCount(), scan.getOverrunCount(),
+						scan.getLastDurationMillis(), scan.getLastLagMillis()));
+		}
+
+		sb.append("\n__**GD event pipeline:**__\n\n");
+		
+		for (PipelineStage stage : gdEvents.getEventPipeline().getStages())
+			sb.append(String.format("**%s:** %d workers, %d queued, %d processed, %d failed, queue time p95 %.0fms, processing time p50 %.0fms, p95 %.0fms\n",
+					stage.getName(), stage.getWorkerCount(), stage.getQueueDepth(), stage.getProcessTime().getCount(), stage.getFailureCount(),
+					stage.getWaitTime().getPercentileMillis(95), stage.getProcessTime().getPercentileMillis(50),
+					stage.getProcessTime().getPercentileMillis(95)));
+		
+		return sb.toString();
+	}
+	
+	private String cacheStats() {
+		Cache cache = UltimateGDBot.cache();
+		StringBuffer sb = new StringBuffer();
+		
+		sb.append("__**Cache statistics:**__\n\n");
+		sb.append("**Evicted entries:** " + cache.evictionCount() + "\n");
+		sb.append("**Expired entries reclaimed:** " + cache.reclaimedCount() + "\n");
+		
+		OffHeapTier tier = cache.getOffHeapTier();
+		if (tier != null)
+			sb.append("**Off-heap tier:** " + tier.size() + " entries, " + SystemUnit.format(tier.usedBytes()) + " used / "
+					+ SystemUnit.format(tier.allocatedBytes()) + " allocated, " + tier.demotionCount() + " demoted, "
+					+ tier.promotionCount() + " promoted, " + tier.evictionCount() + " evicted, "
+					+ tier.rejectionCount() + " rejected\n");
+		sb.append("```\n");
+		
+		for (CacheStatsSnapshot s : cache.stats()) {
+			sb.append(s.getNamespace() + "\n");
+			sb.append(String.format("  hits %d (%d negative), misses %d, hit ratio %.1f%%\n",
+					s.getHits() + s.getNegativeHits(), s.getNegativeHits(), s.getMisses(), s.getHitRatio() * 100));
+			sb.append(String.format("  loads %d ok, %d failed, mean %.0fms, p50 %.0fms, p95 %.0fms, p99 %.0fms\n",
+					s.getLoadSuccesses(), s.getLoadFailures(), s.getMeanLoadMillis(), s.getP50LoadMillis(),
+					s.getP95LoadMillis(), s.getP99LoadMillis()));
+			sb.append("  entries " + s.getSize() + " (" + SystemUnit.format(s.getWeightedSize()) + "), evicted "
+					+ s.getEvictions() + "\n");
+		}
+		
+		sb.append("```");
+		return sb.toString();
+	}
+	
 	@Override
 	public EnumSet<BotRoles> getRolesRequired() {
 		return EnumSet.of(BotRoles.MODERATOR);
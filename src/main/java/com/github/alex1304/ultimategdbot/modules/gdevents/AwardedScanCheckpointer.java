@@ -0,0 +1,75 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.component.GDComponentList;
+import com.github.alex1304.jdash.component.GDLevelPreview;
+import com.github.alex1304.jdashevents.common.CommonEvents;
+import com.github.alex1304.jdashevents.manager.GDEventManager;
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.dbentities.AwardedLevel;
+import com.github.alex1304.ultimategdbot.utils.DatabaseUtils;
+
+/**
+ * Checkpoint of the scan of the Awarded section. The checkpoint is the list of
+ * the IDs of the levels seen.
+ *
+ * Levels seen now but neither in the checkpoint nor in the
+ * {@code awarded_level} table were rated while the bot was offline. Levels
+ * that left the section in the meantime aren't announced, as there is no way
+ * to tell a level that lost its rate from a level that was pushed to the next
+ * page by newer ones.
+ *
+ * @author Alex1304
+ */
+public class AwardedScanCheckpointer extends ScanCheckpointer {
+
+	private volatile GDComponentList<GDLevelPreview> seen;
+
+	public AwardedScanCheckpointer() {
+		super("awarded");
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void accept(GDComponent response) {
+		if (response instanceof GDComponentList && !((GDComponentList<?>) response).isEmpty()
+				&& ((GDComponentList<?>) response).get(0) instanceof GDLevelPreview)
+			this.seen = (GDComponentList<GDLevelPreview>) response;
+	}
+
+	@Override
+	protected void reset() {
+		this.seen = null;
+	}
+
+	@Override
+	protected String getState() {
+		GDComponentList<GDLevelPreview> seen = this.seen;
+
+		if (seen == null)
+			return null;
+
+		return seen.stream().map(lp -> String.valueOf(lp.getId())).collect(Collectors.joining(","));
+	}
+
+	@Override
+	protected void catchUp(String checkpoint) {
+		Set<String> known = Arrays.stream(checkpoint.split(",")).collect(Collectors.toSet());
+		GDComponentList<GDLevelPreview> missed = new GDComponentList<>();
+
+		for (GDLevelPreview lp : seen)
+			if (!known.contains(String.valueOf(lp.getId()))
+					&& DatabaseUtils.findByID(AwardedLevel.class, lp.getId()) == null)
+				missed.add(lp);
+
+		if (missed.isEmpty())
+			return;
+
+		UltimateGDBot.logInfo("Catching up on " + missed.size() + " awarded level(s) rated while the bot was offline");
+		GDEventManager.getInstance().dispatch(CommonEvents.AWARDED_LEVEL_ADDED, missed);
+	}
+}
@@ -0,0 +1,95 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+
+/**
+ * Processes GD events away from the threads that detect them. A scan that
+ * finds an event only has to put it in the queue of the first stage, then goes
+ * back to scanning while the event goes through the stages:
+ * <ol>
+ * <li>Enrichment - logs the event and updates what depends on it, such as the
+ * cache</li>
+ * <li>Subscription resolution - finds the guilds and channels subscribed to
+ * the event</li>
+ * <li>Broadcast submission - sends the messages to the subscribed channels and
+ * to the users linked to the event</li>
+ * </ol>
+ *
+ * Queues are bounded: bursts of events are absorbed by the queues, and if a
+ * queue gets full, the previous stage waits for room, up to the scans if the
+ * whole pipeline is full.
+ *
+ * The enrichment and resolution stages can have several workers, as they only
+ * invalidate cache entries and read the database. The broadcast stage always
+ * has a single one, because the consumer builders keep the callbacks of the
+ * broadcast in progress in shared fields.
+ *
+ * @author Alex1304
+ */
+public class EventPipeline {
+
+	/**
+	 * An event going through the pipeline, with the work to do at each stage.
+	 * An exception thrown at a stage stops the event there.
+	 */
+	public interface Event {
+		void enrich();
+
+		void resolve();
+
+		void broadcast();
+	}
+
+	private final PipelineStage enrichment;
+	private final PipelineStage resolution;
+	private final PipelineStage submission;
+
+	/**
+	 * @param capacity
+	 *            - the maximum number of events waiting at each stage
+	 * @param enrichmentWorkers
+	 *            - the number of threads of the enrichment stage
+	 * @param resolutionWorkers
+	 *            - the number of threads of the subscription resolution stage
+	 */
+	public EventPipeline(int capacity, int enrichmentWorkers, int resolutionWorkers) {
+		this.enrichment = new PipelineStage("Enrichment", capacity, enrichmentWorkers);
+		this.resolution = new PipelineStage("Subscription resolution", capacity, resolutionWorkers);
+		this.submission = new PipelineStage("Broadcast submission", capacity, 1);
+	}
+
+	/**
+	 * Puts an event in the pipeline. It returns as soon as the event is
+	 * queued, which only takes time if the pipeline is full.
+	 *
+	 * @param event
+	 *            - the event
+	 */
+	public void submit(Event event) {
+		forward(enrichment, event::enrich, () -> forward(resolution, event::resolve,
+				() -> forward(submission, event::broadcast, () -> {})));
+	}
+
+	private static void forward(PipelineStage stage, Runnable step, Runnable next) {
+		try {
+			stage.put(step, next);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			UltimateGDBot.logWarning("A GD event was dropped before the stage `" + stage.getName()
+					+ "` because the bot is shutting down");
+		}
+	}
+
+	/**
+	 * Gets the stages of the pipeline, in order
+	 *
+	 * @return List&lt;PipelineStage&gt;
+	 */
+	public List<PipelineStage> getStages() {
+		return Collections.unmodifiableList(Arrays.asList(enrichment, resolution, submission));
+	}
+}
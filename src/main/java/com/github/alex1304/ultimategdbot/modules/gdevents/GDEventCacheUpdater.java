@@ -0,0 +1,81 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.Collection;
+
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.component.GDComponentList;
+import com.github.alex1304.jdash.component.GDLevelPreview;
+import com.github.alex1304.jdash.component.GDUser;
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+
+/**
+ * Keeps the cache consistent with what GD events report, so that commands
+ * show up-to-date info right after an event without fetching it again from
+ * the Geometry Dash servers.
+ *
+ * @author Alex1304
+ */
+public class GDEventCacheUpdater {
+
+	private GDEventCacheUpdater() {
+	}
+
+	/**
+	 * Drops the cached data of levels that were just rated or unrated. Search
+	 * results containing them are dropped as well, since their order and
+	 * filters depend on the rating.
+	 *
+	 * @param levels
+	 *            - the levels that were added to or removed from the awarded
+	 *            section
+	 */
+	public static void onAwardedChanged(Collection<GDLevelPreview> levels) {
+		for (GDLevelPreview lp : levels) {
+			UltimateGDBot.gdLevelCache().invalidate(lp.getId());
+			UltimateGDBot.cache().invalidateDependents(lp.getId());
+		}
+	}
+
+	/**
+	 * Puts the new version of an updated level in every cached search result
+	 * containing it. The full level data can't be built from a preview, so it
+	 * is dropped and will be fetched again on next use.
+	 *
+	 * @param lp
+	 *            - the level, as it is after the update
+	 */
+	public static void onLevelUpdated(GDLevelPreview lp) {
+		UltimateGDBot.gdLevelCache().invalidate(lp.getId());
+		UltimateGDBot.cache().updateDependents(lp.getId(), item -> replaceLevel(item, lp));
+	}
+
+	/**
+	 * Puts the new version of a user whose mod status changed in cache
+	 *
+	 * @param user
+	 *            - the user, as fetched when the change was detected
+	 */
+	public static void onUserUpdated(GDUser user) {
+		UltimateGDBot.gdUserCache().write(user.getAccountID(), user);
+	}
+
+	/**
+	 * Copies a cached list of levels, replacing the old version of the given
+	 * level. Other lists are left for removal.
+	 */
+	private static Object replaceLevel(Object item, GDLevelPreview lp) {
+		if (!(item instanceof GDComponentList))
+			return null;
+
+		GDComponentList<GDComponent> copy = new GDComponentList<>();
+
+		for (Object o : (GDComponentList<?>) item) {
+			if (o instanceof GDLevelPreview && ((GDLevelPreview) o).getId() == lp.getId())
+				copy.add(lp);
+			else
+				copy.add((GDComponent) o);
+		}
+
+		return copy;
+	}
+}
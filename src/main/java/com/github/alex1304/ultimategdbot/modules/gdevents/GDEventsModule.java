@@ -1,13 +1,11 @@
 package com.github.alex1304.ultimategdbot.modules.gdevents;
 
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.github.alex1304.jdash.component.GDComponentList;
 import com.github.alex1304.jdash.component.GDLevelPreview;
 import com.github.alex1304.jdash.component.property.GDUserRole;
-import com.github.alex1304.jdash.exceptions.GDAPIException;
 import com.github.alex1304.jdashevents.GDEvent;
 import com.github.alex1304.jdashevents.common.CommonEvents;
 import com.github.alex1304.jdashevents.customcomponents.GDUpdatedComponent;
@@ -18,6 +16,7 @@ import com.github.alex1304.jdashevents.scanner.WeeklyDemonEventScanner;
 import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.modules.Module;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.AwardedDeletedMessage;
+import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.EventJournal;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.NewAwardedMessage;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.TimelyChangedMessage;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.UserModStatusMessage;
@@ -43,10 +42,10 @@ public class GDEventsModule implements Module {
 	
 	private static final long SCAN_PERIOD = 10000;
 	
-	private Timer gdEventsScanTimer;
-	private AwardedLevelEventScanner als;
-	private DailyLevelEventScanner dls;
-	private WeeklyDemonEventScanner wds;
+	private ScanEngine scanEngine;
+	private final EventPipeline eventPipeline;
+	private final EventJournal eventJournal;
+	private final AtomicBoolean recovered;
 	
 	private static final GDAwardedConsumerBuilder AWARDED_ADDED_CB = new GDAwardedConsumerBuilder(
 			"Awarded Level Added", AuthorObjects.awardedLevelAdded(), () -> new NewAwardedMessage(), true);
@@ -73,20 +72,61 @@ public class GDEventsModule implements Module {
 			"User Demoted User", AuthorObjects.userDemoted(), () -> new UserModStatusMessage(false, GDUserRole.USER));
 	
 	public GDEventsModule() {
-		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.AWARDED_LEVEL_ADDED, AWARDED_ADDED_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.AWARDED_LEVEL_DELETED, AWARDED_DELETED_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.DAILY_LEVEL_CHANGED, DAILY_CHANGED_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.WEEKLY_DEMON_CHANGED, WEEKLY_CHANGED_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_PROMOTED_ELDER", USER_PROMOTED_ELDER_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_PROMOTED_MOD", USER_PROMOTED_MOD_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_DEMOTED_MOD", USER_DEMOTED_MOD_CB.build()));
-		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_DEMOTED_USER", USER_DEMOTED_USER_CB.build()));
+		// Events are processed in their own threads, so that scans keep their pace during broadcasts
+		this.eventPipeline = new EventPipeline(Integer.parseInt(UltimateGDBot.property("ultimategdbot.gd_events.queue_capacity")),
+				Integer.parseInt(UltimateGDBot.property("ultimategdbot.gd_events.enrichment_workers")),
+				Integer.parseInt(UltimateGDBot.property("ultimategdbot.gd_events.resolution_workers")));
+		this.eventJournal = new EventJournal();
+		this.recovered = new AtomicBoolean();
+		eventJournal.start(Long.parseLong(UltimateGDBot.property("ultimategdbot.gd_events.journal_flush_period")));
 		
-		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.AWARDED_LEVEL_UPDATED, (GDComponentList<GDUpdatedComponent<GDLevelPreview>> updated) -> {
+		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.AWARDED_LEVEL_ADDED, AWARDED_ADDED_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.AWARDED_LEVEL_DELETED, AWARDED_DELETED_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.DAILY_LEVEL_CHANGED, DAILY_CHANGED_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.WEEKLY_DEMON_CHANGED, WEEKLY_CHANGED_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_PROMOTED_ELDER", USER_PROMOTED_ELDER_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_PROMOTED_MOD", USER_PROMOTED_MOD_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_DEMOTED_MOD", USER_DEMOTED_MOD_CB.build(eventPipeline, eventJournal)));
+		GDEventManager.getInstance().registerEvent(new GDEvent<>("USER_DEMOTED_USER", USER_DEMOTED_USER_CB.build(eventPipeline, eventJournal)));
+		
+		// Processed like the other events, so that the cache update and the edits don't hold up the scan
+		GDEventManager.getInstance().registerEvent(new GDEvent<>(CommonEvents.AWARDED_LEVEL_UPDATED,
+				(GDComponentList<GDUpdatedComponent<GDLevelPreview>> updated) -> eventPipeline.submit(new AwardedUpdate(updated))));
+	}
+	
+	/**
+	 * The processing of an update of awarded levels: the cache is updated, then
+	 * the messages announcing these levels are edited to show the new info
+	 */
+	private static class AwardedUpdate implements EventPipeline.Event {
+		
+		private final GDComponentList<GDUpdatedComponent<GDLevelPreview>> updated;
+		
+		AwardedUpdate(GDComponentList<GDUpdatedComponent<GDLevelPreview>> updated) {
+			this.updated = updated;
+		}
+		
+		@Override
+		public void enrich() {
+			for (GDUpdatedComponent<GDLevelPreview> ulp : updated)
+				if (ulp.getAfterUpdate() != null)
+					GDEventCacheUpdater.onLevelUpdated(ulp.getAfterUpdate());
+		}
+		
+		@Override
+		public void resolve() {
+			// The messages to edit are the ones of the broadcast, known once it is done
+		}
+		
+		@Override
+		public void broadcast() {
 			for (GDUpdatedComponent<GDLevelPreview> ulp : updated) {
 				GDLevelPreview lp1 = ulp.getBeforeUpdate();
 				GDLevelPreview lp2 = ulp.getAfterUpdate();
 				
+				if (lp2 == null)
+					continue;
+				
 				List<? extends IMessage> ml = AWARDED_ADDED_CB.getBroadcastResults().get(lp1 != null ? lp1.getId() : lp2.getId());
 				
 				if (ml != null) {
@@ -108,62 +148,86 @@ public class GDEventsModule implements Module {
 						AWARDED_ADDED_CB.getAwardedPendingEdit().put(lp2.getId(), doEdit);
 				}
 			}
-		}));
+		}
 	}
 
 	@Override
 	public void start() {
-		this.gdEventsScanTimer = new Timer();
-		this.als = new AwardedLevelEventScanner(UltimateGDBot.gdClient());
-		this.dls = new DailyLevelEventScanner(UltimateGDBot.gdClient());
-		this.wds = new WeeklyDemonEventScanner(UltimateGDBot.gdClient());
+		// Broadcasts interrupted by the last stop of the bot are finished once per run
+		if (recovered.compareAndSet(false, true))
+			new Thread(() -> {
+				int resumed = eventJournal.recover();
+				if (resumed > 0)
+					UltimateGDBot.logInfo("Resuming " + resumed + " GD event deliveries interrupted by the last stop of the bot");
+			}, "event-journal-recovery").start();
 		
-		gdEventsScanTimer.scheduleAtFixedRate(new TimerTask() {
-
-			@Override
-			public void run() {
-				try {
-					GDEventsModule.this.als.scan();
-				} catch (GDAPIException e) {
-					UltimateGDBot.logException(e);
-				}
-			}
-			
-		}, 0, SCAN_PERIOD * 3);
+		// Daily levels and Weekly demons are only scanned around the time they are announced to change
+		TimelyScanSchedule dailySchedule = new TimelyScanSchedule(SCAN_PERIOD * 3);
+		TimelyScanSchedule weeklySchedule = new TimelyScanSchedule(SCAN_PERIOD * 3);
+		// What the scanners see is saved in database, to catch up on events missed while offline
+		ScanCheckpointer awardedCheckpointer = new AwardedScanCheckpointer();
+		ScanCheckpointer dailyCheckpointer = new TimelyScanCheckpointer(false);
+		ScanCheckpointer weeklyCheckpointer = new TimelyScanCheckpointer(true);
 		
-		gdEventsScanTimer.scheduleAtFixedRate(new TimerTask() {
-
-			@Override
-			public void run() {
-				try {
-					GDEventsModule.this.dls.scan();
-				} catch (GDAPIException e) {
-					UltimateGDBot.logException(e);
-				}
-			}
-			
-		}, SCAN_PERIOD, SCAN_PERIOD * 3);
+		ObservedHttpClient awardedClient = new ObservedHttpClient();
+		awardedClient.addListener(awardedCheckpointer);
+		ObservedHttpClient dailyClient = new ObservedHttpClient();
+		dailyClient.addListener(dailySchedule::observe);
+		dailyClient.addListener(dailyCheckpointer);
+		ObservedHttpClient weeklyClient = new ObservedHttpClient();
+		weeklyClient.addListener(weeklySchedule::observe);
+		weeklyClient.addListener(weeklyCheckpointer);
 		
-		gdEventsScanTimer.scheduleAtFixedRate(new TimerTask() {
-
-			@Override
-			public void run() {
-				try {
-					GDEventsModule.this.wds.scan();
-				} catch (GDAPIException e) {
-					UltimateGDBot.logException(e);
-				}
-			}
-			
-		}, SCAN_PERIOD * 2, SCAN_PERIOD * 3);
+		AwardedLevelEventScanner als = new AwardedLevelEventScanner(awardedClient);
+		DailyLevelEventScanner dls = new DailyLevelEventScanner(dailyClient);
+		WeeklyDemonEventScanner wds = new WeeklyDemonEventScanner(weeklyClient);
+		
+		this.scanEngine = new ScanEngine();
+		scanEngine.register("Awarded levels", skipWhileSuspended(awardedCheckpointer.wrap(als::scan)), 0, SCAN_PERIOD * 3);
+		scanEngine.register("Daily level", skipWhileSuspended(dailyCheckpointer.wrap(dls::scan)), SCAN_PERIOD, dailySchedule);
+		scanEngine.register("Weekly demon", skipWhileSuspended(weeklyCheckpointer.wrap(wds::scan)), SCAN_PERIOD * 2, weeklySchedule);
+		scanEngine.start();
+	}
+	
+	private static ScheduledScan.Task skipWhileSuspended(ScheduledScan.Task task) {
+		return () -> {
+			// Scans are skipped while GD servers are known to be down
+			if (!UltimateGDBot.gdGateway().isSuspended())
+				task.run();
+		};
 	}
 
 	@Override
 	public void stop() {
-		gdEventsScanTimer.cancel();
-		this.gdEventsScanTimer = null;
-		this.als = null;
-		this.dls = null;
-		this.wds = null;
+		scanEngine.stop();
+		eventJournal.flush();
+	}
+	
+	/**
+	 * Gets the engine running the scans, or null if the module was never
+	 * started
+	 * 
+	 * @return ScanEngine
+	 */
+	public ScanEngine getScanEngine() {
+		return scanEngine;
+	}
+	
+	/**
+	 * Gets the pipeline processing the GD events
+	 * 
+	 * @return EventPipeline
+	 */
+	public EventPipeline getEventPipeline() {
+		return eventPipeline;
+	}
+	
+	/**
+	 * Gets the journal of the broadcasts made for GD events
+	 * 
+	 * @return EventJournal
+	 */
+	public EventJournal getEventJournal() {
+		return eventJournal;
 	}
 }
@@ -0,0 +1,52 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.github.alex1304.jdash.api.GDHttpRequest;
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.exceptions.GDAPIException;
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.gateway.GatewayHttpClient;
+import com.github.alex1304.ultimategdbot.gateway.RequestPriority;
+
+/**
+ * Client for event scanners, that lets listeners see the responses received
+ * by the scanner. The scanners of jdash-events don't tell what they fetched,
+ * so this is the way to know about the current Daily level or the current
+ * awarded levels.
+ *
+ * @author Alex1304
+ */
+public class ObservedHttpClient extends GatewayHttpClient {
+
+	private final List<Consumer<GDComponent>> listeners;
+
+	public ObservedHttpClient() {
+		super(UltimateGDBot.gdGateway(), RequestPriority.EVENT_SCAN,
+				Long.parseLong(UltimateGDBot.property("ultimategdbot.gd_client.id")),
+				UltimateGDBot.property("ultimategdbot.gd_client.password"));
+		this.listeners = new CopyOnWriteArrayList<>();
+	}
+
+	@Override
+	public <T extends GDComponent> T fetch(GDHttpRequest<T> request) throws GDAPIException {
+		T result = super.fetch(request);
+
+		if (result != null)
+			listeners.forEach(l -> l.accept(result));
+
+		return result;
+	}
+
+	/**
+	 * Adds a listener that is given every response received by this client
+	 *
+	 * @param listener
+	 *            - the listener
+	 */
+	public void addListener(Consumer<GDComponent> listener) {
+		listeners.add(listener);
+	}
+}
@@ -0,0 +1,158 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.utils.LatencyHistogram;
+
+/**
+ * A stage of the {@link EventPipeline}: a bounded queue of steps, run by a
+ * fixed number of worker threads. With a single worker, steps run one after
+ * the other, so events go through the stage in the order they came in. With
+ * several, a slow event no longer holds up the ones behind it, but they may
+ * leave the stage in a different order. Adding a step to a full queue blocks
+ * until there is room.
+ *
+ * @author Alex1304
+ */
+public class PipelineStage {
+
+	private final String name;
+	private final BlockingQueue<Runnable> queue;
+	private final LatencyHistogram waitTime;
+	private final LatencyHistogram processTime;
+	private final AtomicLong failureCount;
+	private final List<Thread> workers;
+
+	/**
+	 * @param name
+	 *            - the name of the stage, as shown in statistics
+	 * @param capacity
+	 *            - the maximum number of steps waiting in the queue
+	 * @param workerCount
+	 *            - the number of threads running the steps
+	 */
+	public PipelineStage(String name, int capacity, int workerCount) {
+		if (workerCount <= 0)
+			throw new IllegalArgumentException("A pipeline stage needs at least one worker");
+
+		this.name = name;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.waitTime = new LatencyHistogram();
+		this.processTime = new LatencyHistogram();
+		this.failureCount = new AtomicLong();
+		this.workers = new ArrayList<>();
+
+		String threadName = "gd-events-" + name.toLowerCase().replace(' ', '-');
+
+		for (int i = 1 ; i <= workerCount ; i++) {
+			Thread worker = new Thread(this::work, workerCount == 1 ? threadName : threadName + "-" + i);
+			worker.setDaemon(true);
+			worker.start();
+			workers.add(worker);
+		}
+	}
+
+	/**
+	 * Adds a step to the queue of this stage, waiting for room if it is full
+	 *
+	 * @param step
+	 *            - the work to do on the event at this stage
+	 * @param next
+	 *            - what to do with the event once the step succeeded, run by
+	 *            the worker of this stage
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting for room
+	 */
+	void put(Runnable step, Runnable next) throws InterruptedException {
+		long enqueued = System.nanoTime();
+
+		queue.put(() -> {
+			long start = System.nanoTime();
+			waitTime.record(start - enqueued);
+
+			try {
+				step.run();
+			} catch (RuntimeException e) {
+				failureCount.incrementAndGet();
+				UltimateGDBot.logException(e);
+				return;
+			} finally {
+				processTime.record(System.nanoTime() - start);
+			}
+
+			next.run();
+		});
+	}
+
+	private void work() {
+		while (true) {
+			try {
+				queue.take().run();
+			} catch (InterruptedException e) {
+				return;
+			} catch (Throwable t) {
+				UltimateGDBot.logError("Unexpected error in GD event pipeline stage `" + name + "`: " + t);
+			}
+		}
+	}
+
+	/**
+	 * Gets the name of the stage
+	 *
+	 * @return String
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of threads running the steps of this stage
+	 *
+	 * @return int
+	 */
+	public int getWorkerCount() {
+		return workers.size();
+	}
+
+	/**
+	 * Gets the number of steps waiting in the queue
+	 *
+	 * @return int
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Gets the time steps spent waiting in the queue
+	 *
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getWaitTime() {
+		return waitTime;
+	}
+
+	/**
+	 * Gets the time steps took to run
+	 *
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getProcessTime() {
+		return processTime;
+	}
+
+	/**
+	 * Gets the number of steps that threw an exception
+	 *
+	 * @return long
+	 */
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+}
@@ -0,0 +1,102 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.dbentities.ScanCheckpoint;
+import com.github.alex1304.ultimategdbot.utils.DatabaseUtils;
+
+/**
+ * Saves what a scanner has seen in database after each successful scan, so
+ * that events that happened while the bot was offline can be announced when
+ * it starts again.
+ *
+ * The scanners of jdash-events only remember the last state in memory, and
+ * take whatever they see on their first scan as the starting point. So on the
+ * first successful scan after a start, the state seen is compared to the last
+ * checkpoint, and the events missed in between are dispatched in one go. If
+ * there is no checkpoint yet, nothing is dispatched, so that a fresh install
+ * doesn't announce everything it sees.
+ *
+ * What the scanner sees is read from its responses, which are given to
+ * {@link #accept(GDComponent)} through an {@link ObservedHttpClient}.
+ *
+ * @author Alex1304
+ */
+public abstract class ScanCheckpointer implements Consumer<GDComponent> {
+
+	private final String name;
+	private boolean restored;
+
+	/**
+	 * @param name
+	 *            - the name the checkpoint is saved under
+	 */
+	public ScanCheckpointer(String name) {
+		this.name = name;
+		this.restored = false;
+	}
+
+	/**
+	 * Wraps a scan so that the checkpoint is restored and saved around it
+	 *
+	 * @param scan
+	 *            - the scan
+	 * @return ScheduledScan.Task
+	 */
+	public ScheduledScan.Task wrap(ScheduledScan.Task scan) {
+		return () -> {
+			reset();
+			scan.run();
+
+			String state = getState();
+
+			// Nothing was received, the scan didn't really happen
+			if (state == null)
+				return;
+
+			if (!restored) {
+				ScanCheckpoint checkpoint = DatabaseUtils.findByID(ScanCheckpoint.class, name);
+				if (checkpoint != null)
+					catchUp(checkpoint.getState());
+				restored = true;
+			}
+
+			if (!DatabaseUtils.save(new ScanCheckpoint(name, state, new Timestamp(System.currentTimeMillis()))))
+				UltimateGDBot.logWarning("Could not save the checkpoint of the scan `" + name + "`");
+		};
+	}
+
+	/**
+	 * Forgets the responses of the previous scan, before a new scan starts
+	 */
+	protected abstract void reset();
+
+	/**
+	 * Gets the state seen by the last scan, in the form it is saved in
+	 * database
+	 *
+	 * @return the state, or null if no response was received
+	 */
+	protected abstract String getState();
+
+	/**
+	 * Dispatches the events that happened between the given checkpoint and
+	 * the state seen by the last scan
+	 *
+	 * @param checkpoint
+	 *            - the state saved by the last run of the bot
+	 */
+	protected abstract void catchUp(String checkpoint);
+
+	/**
+	 * Gets the name the checkpoint is saved under
+	 *
+	 * @return String
+	 */
+	public String getName() {
+		return name;
+	}
+}
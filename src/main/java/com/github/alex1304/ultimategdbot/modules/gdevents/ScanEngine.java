@@ -0,0 +1,110 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the GD event scans periodically. Each scan has its own thread, so a
+ * slow scan, or a scan busy broadcasting an event to many servers, doesn't
+ * delay the others. Exceptions thrown by a scan are logged and don't prevent
+ * its next runs.
+ *
+ * @author Alex1304
+ */
+public class ScanEngine {
+
+	private final List<ScheduledScan> scans;
+	private final List<Long> initialDelays;
+	private ScheduledExecutorService executor;
+
+	public ScanEngine() {
+		this.scans = new ArrayList<>();
+		this.initialDelays = new ArrayList<>();
+	}
+
+	/**
+	 * Adds a scan to the engine. Scans must be added before the engine is
+	 * started.
+	 *
+	 * @param name
+	 *            - the name of the scan, as shown in statistics
+	 * @param task
+	 *            - the work done by the scan
+	 * @param initialDelay
+	 *            - the time before the first run, in milliseconds
+	 * @param period
+	 *            - the time between the start of two runs, in milliseconds
+	 */
+	public synchronized void register(String name, ScheduledScan.Task task, long initialDelay, long period) {
+		if (executor != null)
+			throw new IllegalStateException("Scan engine already started");
+
+		scans.add(new ScheduledScan(name, task, period));
+		initialDelays.add(initialDelay);
+	}
+
+	/**
+	 * Adds a scan that chooses the delay before its next run after each run.
+	 * Scans must be added before the engine is started.
+	 *
+	 * @param name
+	 *            - the name of the scan, as shown in statistics
+	 * @param task
+	 *            - the work done by the scan
+	 * @param initialDelay
+	 *            - the time before the first run, in milliseconds
+	 * @param nextDelay
+	 *            - gives the time between the end of a run and the start of
+	 *            the next one, in milliseconds
+	 */
+	public synchronized void register(String name, ScheduledScan.Task task, long initialDelay, LongSupplier nextDelay) {
+		if (executor != null)
+			throw new IllegalStateException("Scan engine already started");
+
+		scans.add(new ScheduledScan(name, task, nextDelay));
+		initialDelays.add(initialDelay);
+	}
+
+	/**
+	 * Starts running the scans
+	 */
+	public synchronized void start() {
+		if (executor != null || scans.isEmpty())
+			return;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newScheduledThreadPool(scans.size(), r -> {
+			Thread t = new Thread(r, "gd-scan-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+		for (int i = 0 ; i < scans.size() ; i++)
+			scans.get(i).schedule(executor, initialDelays.get(i));
+	}
+
+	/**
+	 * Stops running the scans. Runs in progress are interrupted.
+	 */
+	public synchronized void stop() {
+		if (executor == null)
+			return;
+
+		executor.shutdownNow();
+		this.executor = null;
+	}
+
+	/**
+	 * Gets the scans of the engine
+	 *
+	 * @return List&lt;ScheduledScan&gt;
+	 */
+	public List<ScheduledScan> getScans() {
+		return Collections.unmodifiableList(scans);
+	}
+}
@@ -0,0 +1,185 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+
+/**
+ * A scan run periodically by the {@link ScanEngine}, along with statistics on
+ * its runs.
+ *
+ * Runs are scheduled at a fixed rate. If a run takes longer than the period,
+ * the runs that should have started in the meantime are skipped instead of
+ * being run back to back, and are counted as overruns.
+ *
+ * Alternatively, a scan can choose the delay before its next run after each
+ * run, for scans that know when there will be something to find.
+ *
+ * @author Alex1304
+ */
+public class ScheduledScan implements Runnable {
+
+	/**
+	 * The work done by a scan
+	 */
+	@FunctionalInterface
+	public interface Task {
+		void run() throws Exception;
+	}
+
+	private final String name;
+	private final Task task;
+	private final LongSupplier nextDelay;
+	private volatile long period;
+	private ScheduledExecutorService executor;
+	private long nextRun;
+	// Only written by the thread running the scan
+	private volatile long runCount;
+	private volatile long failureCount;
+	private volatile long overrunCount;
+	private volatile long lastDuration;
+	private volatile long lastLag;
+	private volatile long lastRunTime;
+
+	ScheduledScan(String name, Task task, long period) {
+		this.name = name;
+		this.task = task;
+		this.nextDelay = null;
+		this.period = TimeUnit.MILLISECONDS.toNanos(period);
+	}
+
+	ScheduledScan(String name, Task task, LongSupplier nextDelay) {
+		this.name = name;
+		this.task = task;
+		this.nextDelay = nextDelay;
+	}
+
+	/**
+	 * Schedules the first run
+	 */
+	void schedule(ScheduledExecutorService executor, long initialDelay) {
+		this.executor = executor;
+		this.nextRun = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay);
+		executor.schedule(this, initialDelay, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		lastLag = start - nextRun;
+		lastRunTime = System.currentTimeMillis();
+
+		try {
+			task.run();
+		} catch (Exception e) {
+			failureCount++;
+			UltimateGDBot.logException(e);
+		} catch (Throwable t) {
+			// Rescheduled anyway, so that one bad run doesn't stop the scan for good
+			failureCount++;
+			UltimateGDBot.logError("Scan '" + name + "' failed: `" + t + "`");
+		} finally {
+			long end = System.nanoTime();
+			runCount++;
+			lastDuration = end - start;
+
+			if (nextDelay != null) {
+				period = TimeUnit.MILLISECONDS.toNanos(Math.max(0, nextDelay.getAsLong()));
+				nextRun = end + period;
+			} else {
+				nextRun += period;
+			}
+
+			if (end > nextRun) {
+				long missed = (end - nextRun) / period + 1;
+				overrunCount += missed;
+				nextRun += missed * period;
+			}
+
+			try {
+				executor.schedule(this, nextRun - end, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// The engine was stopped
+			}
+		}
+	}
+
+	/**
+	 * Gets the name of the scan
+	 *
+	 * @return String
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the period of the scan, in milliseconds. For scans that choose the
+	 * delay before their next run, this is the last delay chosen.
+	 *
+	 * @return long
+	 */
+	public long getPeriod() {
+		return TimeUnit.NANOSECONDS.toMillis(period);
+	}
+
+	/**
+	 * Gets the number of runs so far
+	 *
+	 * @return long
+	 */
+	public long getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Gets the number of runs that ended with an exception
+	 *
+	 * @return long
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * Gets the number of runs skipped because the previous one was still
+	 * running
+	 *
+	 * @return long
+	 */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	/**
+	 * Gets how long the last run took, in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getLastDurationMillis() {
+		return lastDuration / 1e6;
+	}
+
+	/**
+	 * Gets how late the last run started compared to when it was scheduled,
+	 * in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getLastLagMillis() {
+		return lastLag / 1e6;
+	}
+
+	/**
+	 * Gets when the last run started, as a timestamp in milliseconds, or 0 if
+	 * the scan never ran
+	 *
+	 * @return long
+	 */
+	public long getLastRunTime() {
+		return lastRunTime;
+	}
+}
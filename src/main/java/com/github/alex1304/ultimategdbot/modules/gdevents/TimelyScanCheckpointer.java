@@ -0,0 +1,73 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.component.GDTimelyLevel;
+import com.github.alex1304.jdashevents.common.CommonEvents;
+import com.github.alex1304.jdashevents.customcomponents.GDUpdatedComponent;
+import com.github.alex1304.jdashevents.manager.GDEventManager;
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.dbentities.TimelyLevel;
+import com.github.alex1304.ultimategdbot.utils.DatabaseUtils;
+
+/**
+ * Checkpoint of the scan of the Daily level or of the Weekly demon. The
+ * checkpoint is the number of the current Daily level or Weekly demon.
+ *
+ * If the number went up while the bot was offline and the current level isn't
+ * in the {@code timely_level} table yet, the current level is announced. Only
+ * the current one can be: the ones that came and went while the bot was
+ * offline are no longer known by the Geometry Dash servers.
+ *
+ * @author Alex1304
+ */
+public class TimelyScanCheckpointer extends ScanCheckpointer {
+
+	private final boolean weekly;
+	private volatile GDTimelyLevel seen;
+
+	/**
+	 * @param weekly
+	 *            - whether the scan is for the Weekly demon instead of the
+	 *            Daily level
+	 */
+	public TimelyScanCheckpointer(boolean weekly) {
+		super(weekly ? "weekly" : "daily");
+		this.weekly = weekly;
+	}
+
+	@Override
+	public void accept(GDComponent response) {
+		if (response instanceof GDTimelyLevel)
+			this.seen = (GDTimelyLevel) response;
+	}
+
+	@Override
+	protected void reset() {
+		this.seen = null;
+	}
+
+	@Override
+	protected String getState() {
+		GDTimelyLevel seen = this.seen;
+		return seen == null ? null : String.valueOf(seen.getTimelyNumber());
+	}
+
+	@Override
+	protected void catchUp(String checkpoint) {
+		long lastNumber;
+
+		try {
+			lastNumber = Long.parseLong(checkpoint);
+		} catch (NumberFormatException e) {
+			return;
+		}
+
+		if (seen.getTimelyNumber() <= lastNumber || DatabaseUtils.findByID(TimelyLevel.class, seen.getId()) != null)
+			return;
+
+		UltimateGDBot.logInfo("Catching up on " + (weekly ? "Weekly demon" : "Daily level") + " #"
+				+ seen.getTimelyNumber() + " that was announced while the bot was offline");
+		GDEventManager.getInstance().dispatch(weekly ? CommonEvents.WEEKLY_DEMON_CHANGED
+				: CommonEvents.DAILY_LEVEL_CHANGED, new GDUpdatedComponent<>(null, seen));
+	}
+}
@@ -0,0 +1,71 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents;
+
+import java.util.function.LongSupplier;
+
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.component.GDTimelyLevel;
+
+/**
+ * Decides when to scan for a new Daily level or Weekly demon. Geometry Dash
+ * tells how long the current one still has to go, so there is no need to
+ * check every few seconds all day long: the scan sleeps until shortly before
+ * the announced change, then checks often until the change is seen.
+ *
+ * The time left is read from the responses received by the scanner, which
+ * are given to {@link #observe(GDComponent)}. Until a response is received,
+ * or if the change doesn't happen when announced, the scan falls back to a
+ * regular period.
+ *
+ * @author Alex1304
+ */
+public class TimelyScanSchedule implements LongSupplier {
+
+	private static final long WINDOW_BEFORE = 30_000;
+	private static final long WINDOW_AFTER = 120_000;
+	private static final long DENSE_PERIOD = 5_000;
+	private static final long MAX_SLEEP = 3_600_000;
+
+	private final long fallbackPeriod;
+	private volatile long nextChange;
+
+	/**
+	 * @param fallbackPeriod
+	 *            - the time between two scans when the time of the next
+	 *            change isn't known, in milliseconds
+	 */
+	public TimelyScanSchedule(long fallbackPeriod) {
+		this.fallbackPeriod = fallbackPeriod;
+	}
+
+	/**
+	 * Reads the time left before the next change from a response received by
+	 * the scanner
+	 *
+	 * @param response
+	 *            - the response
+	 */
+	public void observe(GDComponent response) {
+		if (response instanceof GDTimelyLevel)
+			nextChange = System.currentTimeMillis() + ((GDTimelyLevel) response).getNextTimelyCooldown() * 1000;
+	}
+
+	/**
+	 * Gets the delay before the next scan, in milliseconds
+	 */
+	@Override
+	public long getAsLong() {
+		if (nextChange == 0)
+			return fallbackPeriod;
+
+		long untilChange = nextChange - System.currentTimeMillis();
+
+		if (untilChange > WINDOW_BEFORE)
+			return Math.min(MAX_SLEEP, untilChange - WINDOW_BEFORE);
+
+		if (untilChange > -WINDOW_AFTER)
+			return DENSE_PERIOD;
+
+		// The change is late, check regularly until it happens
+		return fallbackPeriod;
+	}
+}
@@ -0,0 +1,354 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents.broadcast;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
+import com.github.alex1304.ultimategdbot.dbentities.JournalDelivery;
+import com.github.alex1304.ultimategdbot.dbentities.JournalEntry;
+import com.github.alex1304.ultimategdbot.utils.DatabaseUtils;
+
+import sx.blah.discord.api.internal.DiscordUtils;
+import sx.blah.discord.api.internal.json.objects.EmbedObject;
+import sx.blah.discord.handle.obj.IChannel;
+import sx.blah.discord.handle.obj.IEmbed;
+import sx.blah.discord.handle.obj.IMessage;
+import sx.blah.discord.util.RateLimitException;
+import sx.blah.discord.util.RequestBuffer;
+
+/**
+ * Journal of the messages broadcast for GD events, kept in database so that
+ * broadcasts interrupted by a crash can be finished after a restart.
+ *
+ * Before a broadcast starts, the message and the list of channels it is sent
+ * to are written in a single transaction, each channel with a pending
+ * delivery. As messages are sent, deliveries are marked as delivered or
+ * failed. These updates are written in batches at a regular interval rather
+ * than one by one.
+ *
+ * Deliveries still pending after a restart may or may not have been sent
+ * before the crash, as the last batch of updates may have been lost. So
+ * before sending a message again, the recent messages of the channel are
+ * checked for the same message sent by the bot after the event, and the
+ * delivery is only marked as delivered if it is found. This way, a guild
+ * never gets the same message twice, even when a time range is replayed.
+ *
+ * Deliveries that are pending because their broadcast is still running are
+ * left alone: recovery only covers the broadcasts recorded before the journal
+ * was created, and a replay skips the broadcasts still running in this
+ * instance of the bot. A broadcast stops running once each of its deliveries
+ * is marked and the updates are written in database.
+ *
+ * @author Alex1304
+ */
+public class EventJournal {
+
+	private static final int HISTORY_DEPTH = 50;
+	// Discord snowflakes count milliseconds from the first second of 2015
+	private static final long DISCORD_EPOCH = 1420070400000L;
+	private static final long CLOCK_TOLERANCE = 5000;
+
+	private final Queue<JournalDelivery> updates;
+	private final Timestamp creationDate;
+	private final Map<Long, AtomicInteger> running;
+	private final Queue<Long> finished;
+	private Timer flushTimer;
+
+	public EventJournal() {
+		this.updates = new ConcurrentLinkedQueue<>();
+		this.creationDate = new Timestamp(System.currentTimeMillis());
+		this.running = new ConcurrentHashMap<>();
+		this.finished = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Records a broadcast about to start
+	 *
+	 * @param eventName
+	 *            - the name of the event the broadcast is for
+	 * @param messages
+	 *            - the message to send to each channel
+	 * @return the delivery for each channel, by channel ID. It is empty if
+	 *         the broadcast couldn't be recorded.
+	 */
+	public Map<Long, JournalDelivery> record(String eventName, Map<IChannel, BroadcastableMessage> messages) {
+		if (messages.isEmpty())
+			return Collections.emptyMap();
+
+		String embed;
+
+		try {
+			embed = DiscordUtils.MAPPER.writeValueAsString(messages.values().iterator().next().buildEmbed());
+		} catch (IOException e) {
+			UltimateGDBot.logException(e);
+			return Collections.emptyMap();
+		}
+
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		JournalEntry entry = new JournalEntry(eventName, embed, now);
+		Map<Long, JournalDelivery> deliveries = new HashMap<>();
+
+		boolean success = DatabaseUtils.performTransaction(s -> {
+			s.save(entry);
+			// Before the commit, so that a replay never sees the entry as finished
+			started(entry.getId(), messages.size());
+
+			for (Entry<IChannel, BroadcastableMessage> message : messages.entrySet()) {
+				IChannel channel = message.getKey();
+				JournalDelivery delivery = new JournalDelivery(entry.getId(), channel.getGuild().getLongID(),
+						channel.getLongID(), message.getValue().buildContent(), JournalDelivery.PENDING, 0, now);
+				s.save(delivery);
+				deliveries.put(channel.getLongID(), delivery);
+			}
+		}, true);
+
+		if (!success) {
+			running.remove(entry.getId());
+			UltimateGDBot.logWarning("Could not record the broadcast for GD event **" + eventName
+					+ "** in the event journal, it won't be resumed if the bot stops before the end");
+			return Collections.emptyMap();
+		}
+
+		return deliveries;
+	}
+
+	/**
+	 * Marks a delivery as done. It is written in database with the next batch.
+	 *
+	 * @param delivery
+	 *            - the delivery
+	 * @param message
+	 *            - the message that was sent
+	 */
+	public void markDelivered(JournalDelivery delivery, IMessage message) {
+		delivery.setStatus(JournalDelivery.DELIVERED);
+		delivery.setMessageID(message.getLongID());
+		delivery.setUpdateDate(new Timestamp(System.currentTimeMillis()));
+		updates.add(delivery);
+		settle(delivery);
+	}
+
+	/**
+	 * Marks a delivery as failed. It is written in database with the next
+	 * batch.
+	 *
+	 * @param delivery
+	 *            - the delivery
+	 */
+	public void markFailed(JournalDelivery delivery) {
+		delivery.setStatus(JournalDelivery.FAILED);
+		delivery.setUpdateDate(new Timestamp(System.currentTimeMillis()));
+		updates.add(delivery);
+		settle(delivery);
+	}
+
+	/**
+	 * Marks a broadcast as running in this instance of the bot, until the
+	 * given number of deliveries are marked
+	 */
+	void started(long entryID, int deliveries) {
+		running.put(entryID, new AtomicInteger(deliveries));
+	}
+
+	private void settle(JournalDelivery delivery) {
+		AtomicInteger left = running.get(delivery.getEntryID());
+		if (left != null && left.decrementAndGet() == 0)
+			finished.add(delivery.getEntryID());
+	}
+
+	/**
+	 * Gets whether the broadcast of the given entry is running in this
+	 * instance of the bot, or its last updates aren't written yet
+	 */
+	boolean isRunning(long entryID) {
+		return running.containsKey(entryID);
+	}
+
+	/**
+	 * Writes the delivery updates waiting for the next batch
+	 */
+	public void flush() {
+		List<Long> done = new ArrayList<>();
+		List<JournalDelivery> batch = new ArrayList<>();
+
+		// Finished broadcasts first: their last updates are then part of this batch
+		for (Long entryID = finished.poll() ; entryID != null ; entryID = finished.poll())
+			done.add(entryID);
+
+		for (JournalDelivery delivery = updates.poll() ; delivery != null ; delivery = updates.poll())
+			batch.add(delivery);
+
+		// Kept for the next batch if the database is unavailable
+		if (!batch.isEmpty() && !DatabaseUtils.performTransaction(s -> batch.forEach(s::update), true)) {
+			updates.addAll(batch);
+			finished.addAll(done);
+			return;
+		}
+
+		done.forEach(running::remove);
+	}
+
+	/**
+	 * Starts writing delivery updates in batches
+	 *
+	 * @param period
+	 *            - the time between two batches, in milliseconds
+	 */
+	public synchronized void start(long period) {
+		if (flushTimer != null)
+			return;
+
+		this.flushTimer = new Timer("event-journal-flush", true);
+		flushTimer.schedule(new TimerTask() {
+
+			@Override
+			public void run() {
+				flush();
+			}
+
+		}, period, period);
+	}
+
+	/**
+	 * Stops writing delivery updates in batches, and writes the updates left
+	 */
+	public synchronized void stop() {
+		if (flushTimer != null) {
+			flushTimer.cancel();
+			this.flushTimer = null;
+		}
+
+		flush();
+	}
+
+	/**
+	 * Finishes the broadcasts that were interrupted by the last stop of the
+	 * bot. Broadcasts recorded since the journal was created are running in
+	 * this instance of the bot and are not touched.
+	 *
+	 * @return the number of deliveries resumed
+	 */
+	public synchronized int recover() {
+		List<JournalDelivery> pending = DatabaseUtils.query(JournalDelivery.class,
+				"select d from JournalDelivery d, JournalEntry e where d.entryID = e.id and d.status = "
+						+ JournalDelivery.PENDING + " and e.insertDate < ?0", creationDate);
+
+		resume(pending);
+		return pending.size();
+	}
+
+	/**
+	 * Sends again the messages of the events recorded in the given time range
+	 * to the channels that didn't receive them. Events whose broadcast is still
+	 * running are skipped.
+	 *
+	 * @param from
+	 *            - the beginning of the time range
+	 * @param to
+	 *            - the end of the time range
+	 * @return the number of deliveries resumed
+	 */
+	public synchronized int replay(Timestamp from, Timestamp to) {
+		List<JournalDelivery> undelivered = DatabaseUtils.query(JournalDelivery.class,
+				"select d from JournalDelivery d, JournalEntry e where d.entryID = e.id and d.status <> "
+						+ JournalDelivery.DELIVERED + " and e.insertDate >= ?0 and e.insertDate <= ?1", from, to);
+
+		undelivered.removeIf(d -> isRunning(d.getEntryID()));
+		resume(undelivered);
+		return undelivered.size();
+	}
+
+	private void resume(List<JournalDelivery> deliveries) {
+		Map<Long, List<JournalDelivery>> byEntry = deliveries.stream()
+				.collect(Collectors.groupingBy(JournalDelivery::getEntryID));
+
+		for (Entry<Long, List<JournalDelivery>> group : byEntry.entrySet()) {
+			// Resumed deliveries are sent asynchronously too, a replay in the meantime must not send them again
+			started(group.getKey(), group.getValue().size());
+			JournalEntry entry = DatabaseUtils.findByID(JournalEntry.class, group.getKey());
+			EmbedObject embed;
+
+			try {
+				embed = entry == null ? null : DiscordUtils.MAPPER.readValue(entry.getEmbed(), EmbedObject.class);
+			} catch (IOException e) {
+				embed = null;
+			}
+
+			if (embed == null) {
+				group.getValue().forEach(this::markFailed);
+				continue;
+			}
+
+			for (JournalDelivery delivery : group.getValue())
+				resume(entry, embed, delivery);
+		}
+	}
+
+	private void resume(JournalEntry entry, EmbedObject embed, JournalDelivery delivery) {
+		IChannel channel = UltimateGDBot.client().getChannelByID(delivery.getChannelID());
+
+		if (channel == null) {
+			markFailed(delivery);
+			return;
+		}
+
+		RequestBuffer.request(() -> {
+			try {
+				IMessage sent = findSent(channel, entry, embed);
+				markDelivered(delivery, sent != null ? sent : channel.sendMessage(delivery.getContent(), embed));
+			} catch (Exception e) {
+				if (e instanceof RateLimitException)
+					throw e;
+				markFailed(delivery);
+			}
+		});
+	}
+
+	/**
+	 * Looks in the recent messages of the channel for the message of the
+	 * given event, sent by the bot
+	 *
+	 * @return the message, or null if it isn't there or if the history can't
+	 *         be read
+	 */
+	private static IMessage findSent(IChannel channel, JournalEntry entry, EmbedObject embed) {
+		List<IMessage> history;
+
+		try {
+			history = channel.getMessageHistory(HISTORY_DEPTH);
+		} catch (RateLimitException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			return null;
+		}
+
+		long since = entry.getInsertDate().getTime() - CLOCK_TOLERANCE;
+		String authorName = embed.author == null ? null : embed.author.name;
+
+		for (IMessage m : history) {
+			if (!m.getAuthor().equals(UltimateGDBot.client().getOurUser()) || (m.getLongID() >>> 22) + DISCORD_EPOCH < since)
+				continue;
+
+			for (IEmbed e : m.getEmbeds())
+				if (Objects.equals(e.getTitle(), embed.title)
+						&& Objects.equals(e.getAuthor() == null ? null : e.getAuthor().getName(), authorName))
+					return m;
+		}
+
+		return null;
+	}
+}
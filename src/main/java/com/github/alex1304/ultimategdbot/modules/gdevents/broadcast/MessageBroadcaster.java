@@ -1,11 +1,14 @@
 package com.github.alex1304.ultimategdbot.modules.gdevents.broadcast;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import com.github.alex1304.ultimategdbot.dbentities.JournalDelivery;
+
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -27,6 +30,8 @@ public class MessageBroadcaster {
 	private ObservableList<IMessage> results;
 	private Consumer<ObservableList<? extends IMessage>> onDone;
 	private boolean isDone;
+	private EventJournal journal;
+	private String eventName;
 	
 	public MessageBroadcaster(List<IChannel> channels, Function<IChannel, BroadcastableMessage> messageForChannel) {
 		this.channels = channels;
@@ -42,6 +47,9 @@ public class MessageBroadcaster {
 			broadcastMap.put(channel, messageForChannel.apply(channel));
 		});
 		
+		Map<Long, JournalDelivery> deliveries = journal == null ? Collections.emptyMap()
+				: journal.record(eventName, broadcastMap);
+		
 		results.addListener((ListChangeListener.Change<? extends IMessage> event) -> {
 			while(event.next()) {
 				event.getAddedSubList().forEach(m -> {
@@ -66,12 +74,19 @@ public class MessageBroadcaster {
 			BroadcastableMessage bm = entry.getValue();
 			
 			RequestBuffer.request(() -> {
+				JournalDelivery delivery = deliveries.get(channel.getLongID());
+				
 				try {
-					results.add(channel.sendMessage(bm.buildContent(), bm.buildEmbed()));
+					IMessage message = channel.sendMessage(bm.buildContent(), bm.buildEmbed());
+					if (delivery != null)
+						journal.markDelivered(delivery, message);
+					results.add(message);
 				} catch (Exception e) {
 					if (e instanceof RateLimitException)
 						throw e;
 					System.err.println("[MessageBroadcaster] " + e.getClass().getName() + ": " + e.getMessage());
+					if (delivery != null)
+						journal.markFailed(delivery);
 					results.add(null);
 				} 
 			});
@@ -112,6 +127,18 @@ public class MessageBroadcaster {
 	public void setOnDone(Consumer<ObservableList<? extends IMessage>> onDone) {
 		this.onDone = onDone;
 	}
+	
+	/**
+	 * Records the broadcast in the given journal, so that it can be resumed if
+	 * the bot stops before the end
+	 * 
+	 * @param journal - EventJournal
+	 * @param eventName - the name of the event the broadcast is for
+	 */
+	public void setJournal(EventJournal journal, String eventName) {
+		this.journal = journal;
+		this.eventName = eventName;
+	}
 
 	/**
 	 * Gets the results
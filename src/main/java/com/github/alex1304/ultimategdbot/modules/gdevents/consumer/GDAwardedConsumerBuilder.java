@@ -13,6 +13,7 @@ import com.github.alex1304.ultimategdbot.dbentities.AwardedLevel;
 import com.github.alex1304.ultimategdbot.dbentities.GuildSettings;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.setup.guildsettings.ChannelAwardedLevelsSetting;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.setup.guildsettings.RoleAwardedLevelsSetting;
+import com.github.alex1304.ultimategdbot.modules.gdevents.GDEventCacheUpdater;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.BroadcastableMessage;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.MessageBroadcaster;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.OptionalRoleTagMessage;
@@ -86,6 +87,7 @@ public class GDAwardedConsumerBuilder extends GDEventConsumerBuilder<GDComponent
 			List<IUser> linkedUsers = GDUtils.getDiscordUsersLinkedToGDAccount(creator == null ? -1 : creator.getAccountID());
 			linkedUsers.forEach(u -> BotUtils.sendMessage(u.getOrCreatePMChannel(), ((OptionalRoleTagMessage) messageToBroadcast.get()).getPrivateContent(), embed));
 
+			mb.setJournal(journal, eventName);
 			mb.broadcast();
 		}
 		
@@ -93,11 +95,17 @@ public class GDAwardedConsumerBuilder extends GDEventConsumerBuilder<GDComponent
 	}
 
 	@Override
-	protected void executeBefore(GDComponentList<GDLevelPreview> component) {
+	protected void executeOnSubmit(GDComponentList<GDLevelPreview> component) {
+		// Registered right away so that updates fired before the broadcast starts are kept for later
 		if (saveResults)
 			component.forEach(l -> broadcastResults.put(l.getId(), FXCollections.observableArrayList()));
 	}
 
+	@Override
+	protected void executeBefore(GDComponentList<GDLevelPreview> component) {
+		GDEventCacheUpdater.onAwardedChanged(component);
+	}
+
 	@Override
 	protected void executeAfter(GDComponentList<GDLevelPreview> component) {
 		if (saveResults) {
@@ -15,7 +15,9 @@ import com.github.alex1304.jdash.component.GDComponent;
 import com.github.alex1304.jdash.component.GDComponentList;
 import com.github.alex1304.ultimategdbot.core.UltimateGDBot;
 import com.github.alex1304.ultimategdbot.dbentities.GuildSettings;
+import com.github.alex1304.ultimategdbot.modules.gdevents.EventPipeline;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.BroadcastableMessage;
+import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.EventJournal;
 import com.github.alex1304.ultimategdbot.utils.BotUtils;
 import com.github.alex1304.ultimategdbot.utils.DatabaseUtils;
 import com.github.alex1304.ultimategdbot.utils.Procedure;
@@ -40,6 +42,7 @@ public abstract class GDEventConsumerBuilder<T extends GDComponent> {
 	protected Function<GuildSettings, IChannel> broadcastChannel;
 	protected Procedure onBroadcastDone;
 	protected Consumer<ObservableList<? extends IMessage>> onDone;
+	protected EventJournal journal;
 
 	public GDEventConsumerBuilder(String eventName, String dbChannelField, Supplier<BroadcastableMessage> messageToBroadcast, Function<GuildSettings, IChannel> broadcastChannel) {
 		this.eventName = eventName;
@@ -50,19 +53,54 @@ public abstract class GDEventConsumerBuilder<T extends GDComponent> {
 		this.onDone = results -> {};
 	}
 	
-	public Consumer<T> build() {
+	/**
+	 * Builds the consumer. Events are processed by the given pipeline, so the
+	 * consumer returns as soon as the event is queued, and broadcasts are
+	 * recorded in the given journal.
+	 * 
+	 * @param pipeline - EventPipeline
+	 * @param journal - EventJournal
+	 * @return Consumer&lt;T&gt;
+	 */
+	public Consumer<T> build(EventPipeline pipeline, EventJournal journal) {
+		this.journal = journal;
 		return component -> {
+			executeOnSubmit(component);
+			pipeline.submit(new EventRun(component));
+		};
+	}
+	
+	/**
+	 * The processing of one event, split in the stages of the pipeline
+	 */
+	private class EventRun implements EventPipeline.Event {
+		
+		private final T component;
+		private long beginMillis;
+		private long prepTime;
+		private List<IChannel> channels;
+		private Map<Long, GuildSettings> channelToGS;
+		
+		EventRun(T component) {
+			this.component = component;
+		}
+
+		@Override
+		public void enrich() {
 			if (component instanceof GDComponentList)
 				Collections.reverse((GDComponentList<?>) component);
 			
-			long beginMillis = System.currentTimeMillis();
+			this.beginMillis = System.currentTimeMillis();
 			UltimateGDBot.logInfo("GD event fired: **" + eventName + "** for " + componentToHumanReadableString(component));
 			
-			this.executeBefore(component);
-			
+			executeBefore(component);
+		}
+
+		@Override
+		public void resolve() {
 			List<GuildSettings> gsList = DatabaseUtils.query(GuildSettings.class, "from GuildSettings g where g." + dbChannelField + " > 0");
 			
-			Map<Long, GuildSettings> channelToGS = new ConcurrentHashMap<>();
+			this.channelToGS = new ConcurrentHashMap<>();
 			
 			gsList = gsList.parallelStream()
 					.filter(gs -> {
@@ -77,7 +115,7 @@ public abstract class GDEventConsumerBuilder<T extends GDComponent> {
 					})
 					.collect(Collectors.toList());
 			
-			List<IChannel> channels = new ArrayList<>();
+			this.channels = new ArrayList<>();
 					
 			for (GuildSettings gs : gsList) {
 				IChannel c = broadcastChannel.apply(gs);
@@ -87,9 +125,12 @@ public abstract class GDEventConsumerBuilder<T extends GDComponent> {
 				}
 			}
 			
-			long prepTime = System.currentTimeMillis() - beginMillis;
-			
-			this.onDone = results -> {
+			this.prepTime = System.currentTimeMillis() - beginMillis;
+		}
+
+		@Override
+		public void broadcast() {
+			onDone = results -> {
 				long successful = results.stream().filter(x -> x != null).count();
 				long failed = results.stream().filter(x -> x == null).count();
 				
@@ -101,7 +142,7 @@ public abstract class GDEventConsumerBuilder<T extends GDComponent> {
 					+ "**Total execution time: " + BotUtils.formatTimeMillis(System.currentTimeMillis() - beginMillis) + "**");
 			};
 			
-			this.onBroadcastDone = () -> {
+			onBroadcastDone = () -> {
 				long broadcastTime = System.currentTimeMillis() - beginMillis - prepTime;
 				
 				UltimateGDBot.logSuccess("Successfully processed GD event **" + eventName + "** for " 
@@ -111,12 +152,20 @@ public abstract class GDEventConsumerBuilder<T extends GDComponent> {
 						+ "Now waiting for broadcast results...");
 			};
 			
-			this.broadcastComponent(component, channels, channelToGS);
+			broadcastComponent(component, channels, channelToGS);
 			
-			this.executeAfter(component);
-		};
+			executeAfter(component);
+		}
 	}
 	
+	/**
+	 * Do operations with the component as soon as the event is fired, on the
+	 * thread that fired it, before it is queued in the pipeline
+	 * 
+	 * @param component - T
+	 */
+	protected void executeOnSubmit(T component) {}
+	
 	/**
 	 * Do operations with the component before everything start
 	 * 
@@ -8,6 +8,7 @@ import com.github.alex1304.jdash.component.GDUser;
 import com.github.alex1304.ultimategdbot.dbentities.GuildSettings;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.setup.guildsettings.ChannelGDModeratorsSetting;
 import com.github.alex1304.ultimategdbot.modules.commands.impl.setup.guildsettings.RoleGDModeratorsSetting;
+import com.github.alex1304.ultimategdbot.modules.gdevents.GDEventCacheUpdater;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.BroadcastableMessage;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.MessageBroadcaster;
 import com.github.alex1304.ultimategdbot.modules.gdevents.broadcast.OptionalRoleTagMessage;
@@ -50,6 +51,7 @@ public class GDModConsumerBuilder extends GDEventConsumerBuilder<GDUser> {
 		});
 		
 		mb.setOnDone(onDone);
+		mb.setJournal(journal, eventName);
 		mb.broadcast();
 		onBroadcastDone.run();
 		
@@ -57,6 +59,11 @@ public class GDModConsumerBuilder extends GDEventConsumerBuilder<GDUser> {
 		linkedUsers.forEach(u -> BotUtils.sendMessage(u.getOrCreatePMChannel(), ((OptionalRoleTagMessage) messageToBroadcast.get()).getPrivateContent(), embed));
 	}
 
+	@Override
+	protected void executeBefore(GDUser component) {
+		GDEventCacheUpdater.onUserUpdated(component);
+	}
+
 	@Override
 	protected String componentToHumanReadableString(GDUser component) {
 		return "user **" + component.getName() + "** (" + component.getAccountID() + ")";
@@ -57,6 +57,7 @@ public class GDTimelyConsumerBuilder extends GDEventConsumerBuilder<GDUpdatedCom
 		});
 		
 		mb.setOnDone(onDone);
+		mb.setJournal(journal, eventName);
 		mb.broadcast();
 		onBroadcastDone.run();
 
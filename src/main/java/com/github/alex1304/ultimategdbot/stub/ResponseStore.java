@@ -0,0 +1,116 @@
+package com.github.alex1304.ultimategdbot.stub;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the responses of the Geometry Dash servers on disk, so that they can
+ * be served again by the {@link StubGDServer}.
+ *
+ * Each response is saved in its own file, under a directory named after the
+ * endpoint. The file name is derived from the parameters of the request, so
+ * the same request always gets the same response. Parameters that depend on
+ * the account or the game version, such as passwords and secrets, are left out
+ * so that recordings made with one account can be replayed with another.
+ *
+ * The first line of each file holds the parameters the response was recorded
+ * for, which makes recordings easy to inspect and edit by hand.
+ *
+ * @author Alex1304
+ */
+public class ResponseStore {
+
+	private static final Set<String> IGNORED_PARAMS = new HashSet<>(Arrays.asList("accountID", "gjp", "gjp2",
+			"secret", "gameVersion", "binaryVersion", "gdw", "udid", "uuid"));
+
+	private final Path directory;
+
+	/**
+	 * @param directory
+	 *            - the directory where responses are stored
+	 */
+	public ResponseStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads the response recorded for a request
+	 *
+	 * @param endpoint
+	 *            - the endpoint the request was sent to, such as
+	 *            {@code getGJLevels21.php}
+	 * @param params
+	 *            - the parameters of the request
+	 * @return the response, or null if none was recorded
+	 * @throws IOException
+	 *             if the recording couldn't be read
+	 */
+	public String read(String endpoint, Map<String, String> params) throws IOException {
+		Path file = fileFor(endpoint, params);
+
+		if (!Files.exists(file))
+			return null;
+
+		String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		return content.substring(content.indexOf('\n') + 1);
+	}
+
+	/**
+	 * Records the response to a request, replacing any previous recording for
+	 * the same request
+	 *
+	 * @param endpoint
+	 *            - the endpoint the request was sent to
+	 * @param params
+	 *            - the parameters of the request
+	 * @param response
+	 *            - the response to record
+	 * @throws IOException
+	 *             if the recording couldn't be written
+	 */
+	public void write(String endpoint, Map<String, String> params, String response) throws IOException {
+		Path file = fileFor(endpoint, params);
+		Files.createDirectories(file.getParent());
+
+		// Written aside first so that a concurrent replay never reads half a file
+		Path temp = Files.createTempFile(file.getParent(), "record", ".tmp");
+		Files.write(temp, (normalize(params) + "\n" + response).getBytes(StandardCharsets.UTF_8));
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private Path fileFor(String endpoint, Map<String, String> params) {
+		return directory.resolve(endpoint.replace(".php", "")).resolve(hash(normalize(params)) + ".txt");
+	}
+
+	private static String normalize(Map<String, String> params) {
+		return new TreeMap<>(params).entrySet().stream()
+				.filter(e -> !IGNORED_PARAMS.contains(e.getKey()))
+				.map(e -> e.getKey() + "=" + e.getValue())
+				.collect(Collectors.joining("&"));
+	}
+
+	private static String hash(String s) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+
+			for (byte b : digest)
+				sb.append(String.format("%02x", b));
+
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
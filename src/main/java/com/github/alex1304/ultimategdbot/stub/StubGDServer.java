@@ -0,0 +1,271 @@
+package com.github.alex1304.ultimategdbot.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP server that imitates the Geometry Dash servers, in order to test the
+ * bot offline and reproducibly. Point {@code ultimategdbot.gd_client.url} to
+ * it to use it.
+ *
+ * In record mode, requests are forwarded to the real servers and their
+ * responses are saved in a {@link ResponseStore}. In replay mode, responses
+ * are served from the store only, without any network access. Requests that
+ * weren't recorded get {@code -1}, which is what the Geometry Dash servers
+ * answer when nothing is found, except requests that send or delete messages,
+ * which get {@code 1} so that the bot believes they succeeded.
+ *
+ * Whatever the mode, the server can add latency to its responses, fail a
+ * share of them with an HTTP 500 error, and answer HTTP 429 once more than a
+ * given number of requests were received in the same second.
+ *
+ * Options are given as {@code --name=value} arguments:
+ * <ul>
+ * <li>{@code port} - the port to listen on (default 8080)</li>
+ * <li>{@code mode} - {@code replay} or {@code record} (default replay)</li>
+ * <li>{@code dir} - the directory of the recordings (default recordings)</li>
+ * <li>{@code upstream} - the URL of the servers to record from (default
+ * http://www.boomlings.com/database)</li>
+ * <li>{@code latency} - the delay added to every response, in milliseconds
+ * (default 0)</li>
+ * <li>{@code jitter} - the maximum random delay added on top of the latency,
+ * in milliseconds (default 0)</li>
+ * <li>{@code error_rate} - the share of requests that fail, between 0 and 1
+ * (default 0)</li>
+ * <li>{@code max_rps} - the maximum number of requests accepted per second, 0
+ * for no limit (default 0)</li>
+ * <li>{@code threads} - the number of requests handled at the same time
+ * (default 32)</li>
+ * </ul>
+ *
+ * @author Alex1304
+ */
+public class StubGDServer {
+
+	private final ResponseStore store;
+	private final boolean record;
+	private final String upstream;
+	private final long latency;
+	private final long jitter;
+	private final double errorRate;
+	private final int maxRps;
+	private long windowStart;
+	private int windowCount;
+	private final AtomicLong servedCount;
+	private final AtomicLong missedCount;
+	private final AtomicLong failedCount;
+	private final AtomicLong throttledCount;
+
+	public StubGDServer(ResponseStore store, boolean record, String upstream, long latency, long jitter,
+			double errorRate, int maxRps) {
+		this.store = store;
+		this.record = record;
+		this.upstream = upstream;
+		this.latency = latency;
+		this.jitter = jitter;
+		this.errorRate = errorRate;
+		this.maxRps = maxRps;
+		this.servedCount = new AtomicLong();
+		this.missedCount = new AtomicLong();
+		this.failedCount = new AtomicLong();
+		this.throttledCount = new AtomicLong();
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("="))
+				throw new IllegalArgumentException("Expected --name=value, got " + arg);
+
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+		String mode = options.getOrDefault("mode", "replay");
+
+		if (!mode.equals("replay") && !mode.equals("record"))
+			throw new IllegalArgumentException("Unknown mode: " + mode);
+
+		StubGDServer stub = new StubGDServer(new ResponseStore(Paths.get(options.getOrDefault("dir", "recordings"))),
+				mode.equals("record"),
+				options.getOrDefault("upstream", "http://www.boomlings.com/database"),
+				Long.parseLong(options.getOrDefault("latency", "0")),
+				Long.parseLong(options.getOrDefault("jitter", "0")),
+				Double.parseDouble(options.getOrDefault("error_rate", "0")),
+				Integer.parseInt(options.getOrDefault("max_rps", "0")));
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		server.createContext("/", stub::handle);
+		server.setExecutor(Executors.newFixedThreadPool(Integer.parseInt(options.getOrDefault("threads", "32"))));
+		server.start();
+
+		System.out.println("Stub GD server listening on port " + port + " in " + mode + " mode");
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(stub.getStats())));
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!tryAdmit()) {
+				throttledCount.incrementAndGet();
+				respond(exchange, 429, "");
+				return;
+			}
+
+			delay();
+
+			if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				failedCount.incrementAndGet();
+				respond(exchange, 500, "");
+				return;
+			}
+
+			String path = exchange.getRequestURI().getPath();
+			String endpoint = path.substring(path.lastIndexOf('/') + 1);
+			byte[] body = readAll(exchange.getRequestBody());
+			Map<String, String> params = parseForm(new String(body, StandardCharsets.UTF_8));
+
+			if (exchange.getRequestURI().getRawQuery() != null)
+				params.putAll(parseForm(exchange.getRequestURI().getRawQuery()));
+
+			String response = record ? forward(endpoint, body) : store.read(endpoint, params);
+
+			if (response == null && record) {
+				failedCount.incrementAndGet();
+				respond(exchange, 502, "");
+				return;
+			} else if (response == null) {
+				missedCount.incrementAndGet();
+				response = endpoint.startsWith("upload") || endpoint.startsWith("delete") ? "1" : "-1";
+			} else if (record) {
+				store.write(endpoint, params, response);
+			}
+
+			servedCount.incrementAndGet();
+			respond(exchange, 200, response);
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Failed to handle " + exchange.getRequestURI() + ": " + e);
+			respond(exchange, 502, "");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Counts requests in windows of one second, and refuses them once the
+	 * window is full
+	 */
+	private synchronized boolean tryAdmit() {
+		if (maxRps <= 0)
+			return true;
+
+		long now = System.currentTimeMillis();
+
+		if (now - windowStart >= 1000) {
+			windowStart = now;
+			windowCount = 0;
+		}
+
+		return ++windowCount <= maxRps;
+	}
+
+	private void delay() {
+		long delay = latency + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+
+		if (delay <= 0)
+			return;
+
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Sends the request to the real servers
+	 *
+	 * @return the response, or null if the servers didn't answer successfully
+	 */
+	private String forward(String endpoint, byte[] body) throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) new URL(upstream + "/" + endpoint).openConnection();
+		conn.setRequestMethod("POST");
+		conn.setDoOutput(true);
+		conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+
+		try (OutputStream out = conn.getOutputStream()) {
+			out.write(body);
+		}
+
+		if (conn.getResponseCode() != 200)
+			return null;
+
+		try (InputStream in = conn.getInputStream()) {
+			return new String(readAll(in), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String response) throws IOException {
+		byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+
+		if (bytes.length > 0)
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+
+		for (int n = in.read(buffer) ; n != -1 ; n = in.read(buffer))
+			out.write(buffer, 0, n);
+
+		return out.toByteArray();
+	}
+
+	private static Map<String, String> parseForm(String form) throws UnsupportedEncodingException {
+		Map<String, String> params = new HashMap<>();
+
+		for (String pair : form.split("&")) {
+			if (pair.isEmpty())
+				continue;
+
+			int eq = pair.indexOf('=');
+			String name = eq == -1 ? pair : pair.substring(0, eq);
+			String value = eq == -1 ? "" : pair.substring(eq + 1);
+			params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+		}
+
+		return params;
+	}
+
+	/**
+	 * Gets a summary of the requests handled so far
+	 *
+	 * @return String
+	 */
+	public String getStats() {
+		return "Stub GD server: " + servedCount.get() + " served (" + missedCount.get() + " not recorded), "
+				+ failedCount.get() + " failed on purpose, " + throttledCount.get() + " throttled";
+	}
+}
@@ -461,16 +461,16 @@ public class GDUtils {
 			if (us == null || !us.getLinkActivated())
 				throw new NoSuchElementException();
 			
-			user = (GDUser) UltimateGDBot.cache().readAndWriteIfNotExists("gd.user." + us.getGdUserID(),
-					() -> UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(us.getGdUserID())));
+			user = UltimateGDBot.gdUserCache().readAndWriteIfNotExists(us.getGdUserID(),
+					() -> UltimateGDBot.gdGateway().fetch(new GDUserHttpRequest(us.getGdUserID())));
 		} catch (IllegalArgumentException | NoSuchElementException e) {
 			GDComponentList<GDUserPreview> results = (GDComponentList<GDUserPreview>) UltimateGDBot.cache()
 					.readAndWriteIfNotExists("gd.usersearch." + str.replaceAll("_", " "), () ->
-							UltimateGDBot.gdClient().fetch(new GDUserSearchHttpRequest(str, 0)));
+							UltimateGDBot.gdGateway().fetch(new GDUserSearchHttpRequest(str, 0)));
 			
 			if (results != null && !results.isEmpty())
-				user = (GDUser) UltimateGDBot.cache().readAndWriteIfNotExists("gd.user." + results.get(0).getAccountID(),
-						() -> UltimateGDBot.gdClient().fetch(new GDUserHttpRequest(results.get(0).getAccountID())));
+				user = UltimateGDBot.gdUserCache().readAndWriteIfNotExists(results.get(0).getAccountID(),
+						() -> UltimateGDBot.gdGateway().fetch(new GDUserHttpRequest(results.get(0).getAccountID())));
 		}
 		
 		return user;
@@ -537,9 +537,9 @@ public class GDUtils {
 	 */
 	public static void openLevel(GDLevelPreview lp, MessageReceivedEvent event, boolean canGoBack, Procedure goBack) {
 		CommandsModule.executeCommand((event0, args0) -> {
-			GDLevel lvl = (GDLevel) UltimateGDBot.cache().readAndWriteIfNotExists("gd.level." + lp.getId(), () -> {
+			GDLevel lvl = UltimateGDBot.gdLevelCache().readAndWriteIfNotExists(lp.getId(), () -> {
 				BotUtils.typing(event0.getChannel(), true);
-				return UltimateGDBot.gdClient().fetch(new GDLevelHttpRequest(lp.getId()));
+				return UltimateGDBot.gdGateway().fetch(new GDLevelHttpRequest(lp.getId()));
 			});
 			
 			if (lvl == null)
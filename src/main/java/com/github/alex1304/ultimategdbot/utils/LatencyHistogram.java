@@ -0,0 +1,124 @@
+package com.github.alex1304.ultimategdbot.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of durations, with log-linear buckets: each power of
+ * two is split in 4 equal sub-buckets, so percentiles are accurate within 25%
+ * whatever the order of magnitude, from microseconds to hours. Recording a
+ * value only increments striped counters, so it can be used on hot paths.
+ *
+ * @author Alex1304
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+	private static final int BUCKET_COUNT = LINEAR_LIMIT + (64 - 3) * SUB_BUCKETS;
+
+	private final LongAdder[] buckets;
+	private final LongAdder count;
+	private final LongAdder totalMicros;
+
+	public LatencyHistogram() {
+		this.buckets = new LongAdder[BUCKET_COUNT];
+		this.count = new LongAdder();
+		this.totalMicros = new LongAdder();
+
+		for (int i = 0 ; i < BUCKET_COUNT ; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Records a duration
+	 *
+	 * @param nanos
+	 *            - the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		buckets[bucketOf(micros)].increment();
+		count.increment();
+		totalMicros.add(micros);
+	}
+
+	/**
+	 * Gets the number of recorded durations
+	 *
+	 * @return long
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Gets the average of the recorded durations, in milliseconds
+	 *
+	 * @return double
+	 */
+	public double getMeanMillis() {
+		long n = count.sum();
+		return n == 0 ? 0 : totalMicros.sum() / (double) n / 1000;
+	}
+
+	/**
+	 * Gets an upper bound of the given percentile of the recorded durations,
+	 * in milliseconds
+	 *
+	 * @param percentile
+	 *            - the percentile, between 0 and 100
+	 * @return double
+	 */
+	public double getPercentileMillis(double percentile) {
+		long[] counts = new long[BUCKET_COUNT];
+		long n = 0;
+
+		for (int i = 0 ; i < BUCKET_COUNT ; i++) {
+			counts[i] = buckets[i].sum();
+			n += counts[i];
+		}
+
+		if (n == 0)
+			return 0;
+
+		long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100);
+		long seen = 0;
+
+		for (int i = 0 ; i < BUCKET_COUNT ; i++) {
+			seen += counts[i];
+			if (seen >= Math.max(1, rank))
+				return upperBoundOf(i) / 1000.0;
+		}
+
+		return upperBoundOf(BUCKET_COUNT - 1) / 1000.0;
+	}
+
+	/**
+	 * Resets the histogram
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets)
+			bucket.reset();
+		count.reset();
+		totalMicros.reset();
+	}
+
+	private static int bucketOf(long micros) {
+		if (micros < LINEAR_LIMIT)
+			return (int) micros;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_LIMIT + (exponent - 3) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBoundOf(int bucket) {
+		if (bucket < LINEAR_LIMIT)
+			return bucket + 1;
+
+		int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 3;
+		int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+	}
+}
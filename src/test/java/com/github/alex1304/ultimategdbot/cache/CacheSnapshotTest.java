@@ -0,0 +1,80 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import com.github.alex1304.jdash.component.GDComponentList;
+import com.github.alex1304.jdash.component.GDLevel;
+import com.github.alex1304.jdash.component.GDLevelPreview;
+import com.github.alex1304.jdash.component.GDUser;
+
+/**
+ * Checks that the jdash components the bot caches survive a snapshot, and so
+ * the off-heap tier, which serializes them the same way
+ *
+ * @author Alex1304
+ */
+public class CacheSnapshotTest {
+
+	private static Object roundTrip(Object item) throws IOException {
+		byte[] payload = CacheSnapshot.serialize(item);
+		assertNotNull(item.getClass().getName() + " can't be serialized", payload);
+		return CacheSnapshot.deserialize(payload);
+	}
+
+	@Test
+	public void userRoundTrips() throws IOException {
+		GDUser user = GDComponentSamples.sample(GDUser.class);
+		GDUser copy = (GDUser) roundTrip(user);
+
+		assertEquals(user.getAccountID(), copy.getAccountID());
+		assertEquals(user.getName(), copy.getName());
+		assertEquals(user.getYoutube(), copy.getYoutube());
+	}
+
+	@Test
+	public void levelRoundTrips() throws IOException {
+		GDLevel level = GDComponentSamples.sample(GDLevel.class);
+		GDLevel copy = (GDLevel) roundTrip(level);
+
+		assertEquals(level.getId(), copy.getId());
+		assertEquals(level.getName(), copy.getName());
+		assertEquals(level.getUploadTimestamp(), copy.getUploadTimestamp());
+		assertEquals(level.getSong() == null ? null : level.getSong().getSongTitle(),
+				copy.getSong() == null ? null : copy.getSong().getSongTitle());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void searchPageRoundTrips() throws IOException {
+		GDComponentList<GDLevelPreview> page = GDComponentSamples.searchPage(10);
+		GDComponentList<GDLevelPreview> copy = (GDComponentList<GDLevelPreview>) roundTrip(page);
+
+		assertEquals(page.size(), copy.size());
+		for (int i = 0 ; i < page.size() ; i++)
+			assertEquals(page.get(i).getName(), copy.get(i).getName());
+	}
+
+	@Test
+	public void snapshotKeepsComponents() throws IOException {
+		Path file = Files.createTempFile("cache", ".snapshot");
+		try (Cache cache = new Cache()) {
+			cache.write("gd.user.1", GDComponentSamples.sample(GDUser.class));
+			cache.write("gd.level.1", GDComponentSamples.sample(GDLevel.class));
+			cache.write("gd.levelsearch.1", GDComponentSamples.searchPage(10));
+
+			CacheSnapshot.Summary summary = CacheSnapshot.save(cache, file);
+			assertEquals(0, summary.skipped);
+			assertEquals(3, summary.saved);
+			assertEquals(3, CacheSnapshot.readItems(file).size());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
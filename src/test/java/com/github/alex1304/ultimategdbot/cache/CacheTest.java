@@ -0,0 +1,176 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import com.github.alex1304.jdash.component.GDLevel;
+import com.github.alex1304.jdash.component.GDUser;
+
+/**
+ * Checks that the cache stays within its bounds and keeps its popular entries
+ * when a stream of unique keys goes through it, and that the bounds relate to
+ * the memory actually used
+ *
+ * @author Alex1304
+ */
+public class CacheTest {
+
+	private static final int MAX_ENTRIES = 100;
+	private static final long ITEM_WEIGHT = 100;
+	// Tighter than the entry bound, so that both bounds are exercised
+	private static final long MAX_BYTES = ITEM_WEIGHT * MAX_ENTRIES / 2;
+	private static final int STREAM_LENGTH = 10_000;
+	private static final int HOT_KEYS = 10;
+	private static final int COPIES = 20_000;
+	// The weigher only estimates, but must stay in the same ballpark as the heap
+	private static final double MAX_WEIGHT_ERROR = 2;
+
+	private static Cache newCache(int maxEntries, long maxBytes) {
+		return new Cache(maxEntries, maxBytes, item -> ITEM_WEIGHT);
+	}
+
+	private static void assertWithinBounds(Cache cache, int maxEntries, long maxBytes) {
+		assertTrue("size " + cache.size() + " exceeds " + maxEntries, cache.size() <= maxEntries);
+		assertTrue("weighted size " + cache.weightedSize() + " exceeds " + maxBytes, cache.weightedSize() <= maxBytes);
+	}
+
+	@Test
+	public void writeStaysWithinBounds() {
+		try (Cache cache = newCache(MAX_ENTRIES, MAX_BYTES)) {
+			for (int i = 0 ; i < STREAM_LENGTH ; i++) {
+				cache.write("key" + i, "item" + i);
+				assertWithinBounds(cache, MAX_ENTRIES, MAX_BYTES);
+			}
+		}
+	}
+
+	@Test
+	public void readAndWriteIfNotExistsStaysWithinBounds() {
+		try (Cache cache = newCache(MAX_ENTRIES, MAX_BYTES)) {
+			for (int i = 0 ; i < STREAM_LENGTH ; i++) {
+				String item = "item" + i;
+				assertNotNull(cache.readAndWriteIfNotExists("key" + i, () -> item));
+				assertWithinBounds(cache, MAX_ENTRIES, MAX_BYTES);
+			}
+		}
+	}
+
+	@Test
+	public void entryBoundIsEnforced() {
+		try (Cache cache = newCache(MAX_ENTRIES, Long.MAX_VALUE)) {
+			for (int i = 0 ; i < STREAM_LENGTH ; i++)
+				cache.write("key" + i, "item" + i);
+
+			assertEquals(MAX_ENTRIES, cache.size());
+		}
+	}
+
+	@Test
+	public void frequentlyReadKeysSurviveScan() {
+		try (Cache cache = newCache(MAX_ENTRIES, MAX_BYTES)) {
+			for (int i = 0 ; i < HOT_KEYS ; i++)
+				cache.write("hot" + i, "item" + i);
+
+			// Read again, so they are promoted to the protected segment
+			for (int i = 0 ; i < HOT_KEYS ; i++)
+				assertNotNull(cache.read("hot" + i));
+
+			for (int i = 0 ; i < STREAM_LENGTH ; i++) {
+				cache.write("key" + i, "item" + i);
+
+				if (i % MAX_ENTRIES == 0)
+					for (int j = 0 ; j < HOT_KEYS ; j++)
+						assertNotNull("hot" + j + " was evicted", cache.read("hot" + j));
+			}
+
+			for (int i = 0 ; i < HOT_KEYS ; i++)
+				assertNotNull("hot" + i + " was evicted", cache.read("hot" + i));
+
+			assertWithinBounds(cache, MAX_ENTRIES, MAX_BYTES);
+		}
+	}
+
+	@Test
+	public void regionsShareTheMemoryBudget() {
+		try (Cache cache = newCache(MAX_ENTRIES, MAX_BYTES)) {
+			CacheRegion<String> region = cache.createRegion("test", 3_600_000, MAX_ENTRIES, MAX_BYTES / 2);
+
+			for (int i = 0 ; i < STREAM_LENGTH ; i++) {
+				cache.write("key" + i, "item" + i);
+				region.write(i, "item" + i);
+				assertTrue("total weighted size " + cache.totalWeightedSize() + " exceeds " + MAX_BYTES,
+						cache.totalWeightedSize() <= MAX_BYTES);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void regionCannotTakeTheWholeBudget() {
+		try (Cache cache = newCache(MAX_ENTRIES, MAX_BYTES)) {
+			cache.createRegion("test", 3_600_000, MAX_ENTRIES, MAX_BYTES);
+		}
+	}
+
+	@Test
+	public void userWeightMatchesRetainedMemory() {
+		assertWeighsLikeHeap(() -> GDComponentSamples.sample(GDUser.class), COPIES);
+	}
+
+	@Test
+	public void levelWeightMatchesRetainedMemory() {
+		assertWeighsLikeHeap(() -> GDComponentSamples.sample(GDLevel.class), COPIES);
+	}
+
+	@Test
+	public void searchPageWeightMatchesRetainedMemory() {
+		assertWeighsLikeHeap(() -> GDComponentSamples.searchPage(10), COPIES / 10);
+	}
+
+	@Test
+	public void stringListWeightMatchesRetainedMemory() {
+		assertWeighsLikeHeap(() -> {
+			List<String> list = new ArrayList<>();
+			for (int i = 0 ; i < 10 ; i++)
+				list.add(new String(new char[100 + i * 10]));
+			return list;
+		}, COPIES / 10);
+	}
+
+	/**
+	 * Keeps many items alive and compares their total estimated weight with
+	 * the growth of the heap
+	 */
+	private static void assertWeighsLikeHeap(Supplier<Object> factory, int copies) {
+		GDComponentWeigher weigher = new GDComponentWeigher();
+		Object[] items = new Object[copies];
+		long weight = 0;
+
+		long before = usedHeap();
+		for (int i = 0 ; i < copies ; i++) {
+			items[i] = factory.get();
+			weight += weigher.weigh(items[i]);
+		}
+		long retained = usedHeap() - before;
+
+		double ratio = weight / (double) retained;
+		String message = items[copies - 1].getClass().getSimpleName() + ": estimated " + weight + " bytes, retained "
+				+ retained + " bytes";
+		assertTrue(message, ratio <= MAX_WEIGHT_ERROR && ratio >= 1 / MAX_WEIGHT_ERROR);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0 ; i < 3 ; i++)
+			System.gc();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.alex1304.jdash.component.GDComponent;
+import com.github.alex1304.jdash.component.GDComponentList;
+import com.github.alex1304.jdash.component.GDLevelPreview;
+
+/**
+ * Builds real jdash components filled with sample values, through their most
+ * complete public constructor, so that tests don't depend on the exact
+ * signature of each one
+ *
+ * @author Alex1304
+ */
+class GDComponentSamples {
+
+	private static final AtomicInteger COUNTER = new AtomicInteger();
+
+	private GDComponentSamples() {
+	}
+
+	/**
+	 * Builds a component of the given type. Each call gives new instances of
+	 * all the strings and components inside, like a fresh response from the
+	 * Geometry Dash servers would.
+	 *
+	 * @param type
+	 *            - the type of component
+	 * @param <T>
+	 *            - the type of component
+	 * @return T
+	 */
+	static <T> T sample(Class<T> type) {
+		Constructor<?> constructor = Arrays.stream(type.getConstructors())
+				.max(Comparator.comparingInt(Constructor::getParameterCount))
+				.orElseThrow(() -> new IllegalArgumentException(type + " has no public constructor"));
+
+		Object[] args = Arrays.stream(constructor.getParameterTypes())
+				.map(GDComponentSamples::value)
+				.toArray();
+
+		try {
+			return type.cast(constructor.newInstance(args));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not build a sample " + type.getSimpleName(), e);
+		}
+	}
+
+	/**
+	 * Builds a search page of the given number of levels
+	 *
+	 * @param size
+	 *            - the number of levels
+	 * @return GDComponentList&lt;GDLevelPreview&gt;
+	 */
+	static GDComponentList<GDLevelPreview> searchPage(int size) {
+		GDComponentList<GDLevelPreview> page = new GDComponentList<>();
+
+		for (int i = 0 ; i < size ; i++)
+			page.add(sample(GDLevelPreview.class));
+
+		return page;
+	}
+
+	private static Object value(Class<?> type) {
+		int n = COUNTER.incrementAndGet();
+
+		if (type == String.class)
+			return new String("sample value " + n);
+		if (type == boolean.class || type == Boolean.class)
+			return true;
+		if (type == int.class || type == Integer.class)
+			return n;
+		if (type == long.class || type == Long.class)
+			return (long) n;
+		if (type == short.class || type == Short.class)
+			return (short) n;
+		if (type == byte.class || type == Byte.class)
+			return (byte) n;
+		if (type == double.class || type == Double.class)
+			return (double) n;
+		if (type == float.class || type == Float.class)
+			return (float) n;
+		if (type == char.class || type == Character.class)
+			return 'x';
+		if (type.isEnum())
+			return type.getEnumConstants()[0];
+		if (GDComponent.class.isAssignableFrom(type) && !type.isInterface())
+			return sample(type);
+
+		return null;
+	}
+}
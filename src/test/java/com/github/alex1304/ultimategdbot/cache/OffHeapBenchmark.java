@@ -0,0 +1,157 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.github.alex1304.ultimategdbot.utils.SystemUnit;
+
+/**
+ * Measures the garbage collection work of the cache with and without the
+ * {@link OffHeapTier}.
+ *
+ * The items come from a cache snapshot saved by the bot, so the benchmark works
+ * on real levels, profiles and search pages. A fixed sequence of reads, skewed
+ * towards a small set of popular keys, runs against a cache that is much
+ * smaller than the set of keys. Every miss writes a fresh copy of an item,
+ * like a response just received from the Geometry Dash servers. The same
+ * sequence runs once without the tier and once with it, and the number and
+ * duration of garbage collections of each run are printed.
+ *
+ * It lives with the tests so that it isn't shipped with the bot, but isn't run
+ * by the test phase: see the self-hosting guide for how to start it.
+ *
+ * @author Alex1304
+ */
+public class OffHeapBenchmark {
+
+	private final List<byte[]> templates;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final int keys;
+	private final int operations;
+	private final long seed;
+
+	private OffHeapBenchmark(List<byte[]> templates, int maxEntries, long maxBytes, int keys, int operations, long seed) {
+		this.templates = templates;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.keys = keys;
+		this.operations = operations;
+		this.seed = seed;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("="))
+				throw new IllegalArgumentException("Expected --name=value, got " + arg);
+
+			options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		List<byte[]> templates = new ArrayList<>();
+
+		for (Object item : CacheSnapshot.readItems(Paths.get(options.getOrDefault("snapshot", "cache.snapshot")))) {
+			byte[] payload = CacheSnapshot.serialize(item);
+			if (payload != null)
+				templates.add(payload);
+		}
+
+		if (templates.isEmpty())
+			throw new IllegalArgumentException("The snapshot doesn't contain any item");
+
+		OffHeapBenchmark benchmark = new OffHeapBenchmark(templates,
+				Integer.parseInt(options.getOrDefault("max_entries", "5000")),
+				Long.parseLong(options.getOrDefault("max_bytes", "16777216")),
+				Integer.parseInt(options.getOrDefault("keys", "50000")),
+				Integer.parseInt(options.getOrDefault("ops", "200000")),
+				Long.parseLong(options.getOrDefault("seed", "42")));
+
+		System.out.println("Loaded " + templates.size() + " items from the snapshot");
+		benchmark.run(0);
+		benchmark.run(Long.parseLong(options.getOrDefault("offheap_bytes", "67108864")));
+	}
+
+	private void run(long offHeapBytes) throws IOException {
+		Cache cache = new Cache(maxEntries, maxBytes);
+		if (offHeapBytes > 0)
+			cache.enableOffHeapTier(offHeapBytes);
+
+		// Warm up with a different sequence, so that the measured run starts with a full cache
+		replay(cache, new Random(~seed), operations / 10);
+		System.gc();
+
+		Map<String, long[]> before = collections();
+		long start = System.nanoTime();
+		long hits = replay(cache, new Random(seed), operations);
+		long elapsed = System.nanoTime() - start;
+		Map<String, long[]> after = collections();
+
+		System.out.println();
+		System.out.println(offHeapBytes > 0 ? "With an off-heap tier of " + SystemUnit.format(offHeapBytes) : "Without off-heap tier");
+		System.out.println(String.format("  %d operations in %dms, hit ratio %.1f%%", operations, elapsed / 1_000_000,
+				hits * 100.0 / operations));
+
+		long totalCount = 0, totalTime = 0;
+
+		for (Map.Entry<String, long[]> gc : after.entrySet()) {
+			long count = gc.getValue()[0] - before.get(gc.getKey())[0];
+			long time = gc.getValue()[1] - before.get(gc.getKey())[1];
+			totalCount += count;
+			totalTime += time;
+			System.out.println(String.format("  %s: %d collections, %dms total, %.1fms mean", gc.getKey(), count, time,
+					count == 0 ? 0 : time / (double) count));
+		}
+
+		System.out.println("  All collectors: " + totalCount + " collections, " + totalTime + "ms total");
+
+		OffHeapTier tier = cache.getOffHeapTier();
+		if (tier != null)
+			System.out.println("  Off-heap tier: " + tier.size() + " entries, " + SystemUnit.format(tier.usedBytes())
+					+ " used / " + SystemUnit.format(tier.allocatedBytes()) + " allocated, " + tier.demotionCount()
+					+ " demoted, " + tier.promotionCount() + " promoted, " + tier.evictionCount() + " evicted, "
+					+ tier.rejectionCount() + " rejected");
+
+		cache.clear();
+		cache.close();
+	}
+
+	/**
+	 * Reads keys picked by the given random generator, writing a copy of an
+	 * item on each miss, and returns the number of hits
+	 */
+	private long replay(Cache cache, Random random, int count) throws IOException {
+		long hits = 0;
+
+		for (int i = 0 ; i < count ; i++) {
+			// Cubing a uniform number makes low keys much more popular than high ones
+			double r = random.nextDouble();
+			int key = (int) (keys * r * r * r);
+			String entryName = "benchmark." + key;
+
+			if (cache.read(entryName) != null)
+				hits++;
+			else
+				cache.write(entryName, CacheSnapshot.deserialize(templates.get(key % templates.size())));
+		}
+
+		return hits;
+	}
+
+	private static Map<String, long[]> collections() {
+		Map<String, long[]> collections = new HashMap<>();
+
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			collections.put(gc.getName(), new long[] { gc.getCollectionCount(), gc.getCollectionTime() });
+
+		return collections;
+	}
+}
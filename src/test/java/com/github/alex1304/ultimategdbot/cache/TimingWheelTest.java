@@ -0,0 +1,92 @@
+package com.github.alex1304.ultimategdbot.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that the timing wheel returns entries when they expire, including
+ * the ones that expire many revolutions later
+ *
+ * @author Alex1304
+ */
+public class TimingWheelTest {
+
+	private static final long TICK = 1000;
+	private static final int WHEEL_SIZE = 16;
+	private static final long LIFETIME = 3_600_000;
+
+	/**
+	 * Advances the wheel one tick at a time, like the sweeper does, and returns
+	 * when the entry came out, or -1 if it didn't
+	 */
+	private static long advanceUntilExpired(TimingWheel wheel, CacheEntry entry, long from, long to) {
+		long expiredAt = -1;
+
+		for (long now = from ; now <= to ; now += TICK) {
+			List<CacheEntry> expired = wheel.advance(now);
+			if (expired.contains(entry)) {
+				assertEquals("expired twice", -1, expiredAt);
+				expiredAt = now;
+			}
+		}
+
+		return expiredAt;
+	}
+
+	@Test
+	public void entryExpiresOnTime() {
+		TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE);
+		long start = System.currentTimeMillis();
+		CacheEntry entry = new CacheEntry("item", start + 10 * TICK);
+		wheel.schedule(entry);
+
+		long expiredAt = advanceUntilExpired(wheel, entry, start, start + 20 * TICK);
+		assertTrue("expired at " + expiredAt, expiredAt > entry.getExpiryTimestamp());
+		assertTrue("expired at " + expiredAt, expiredAt <= entry.getExpiryTimestamp() + 2 * TICK);
+	}
+
+	@Test
+	public void entryManyRevolutionsAwayExpiresOnTime() {
+		TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE);
+		long start = System.currentTimeMillis();
+		CacheEntry entry = new CacheEntry("item", start + LIFETIME);
+		wheel.schedule(entry);
+
+		long expiredAt = advanceUntilExpired(wheel, entry, start, start + LIFETIME + 10 * TICK);
+		assertTrue("expired at " + expiredAt, expiredAt > entry.getExpiryTimestamp());
+		assertTrue("expired at " + expiredAt, expiredAt <= entry.getExpiryTimestamp() + 2 * TICK);
+	}
+
+	@Test
+	public void entryExpiresWhenSweepIsLate() {
+		TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE);
+		long start = System.currentTimeMillis();
+		CacheEntry soon = new CacheEntry("soon", start + 5 * TICK);
+		CacheEntry later = new CacheEntry("later", start + LIFETIME);
+		wheel.schedule(soon);
+		wheel.schedule(later);
+
+		List<CacheEntry> expired = wheel.advance(start + LIFETIME / 2);
+		assertTrue(expired.contains(soon));
+		assertTrue(!expired.contains(later));
+
+		long expiredAt = advanceUntilExpired(wheel, later, start + LIFETIME / 2, start + LIFETIME + 10 * TICK);
+		assertTrue("expired at " + expiredAt, expiredAt > later.getExpiryTimestamp());
+	}
+
+	@Test
+	public void cancelledEntryDoesNotExpire() {
+		TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE);
+		long start = System.currentTimeMillis();
+		CacheEntry entry = new CacheEntry("item", start + LIFETIME);
+		wheel.schedule(entry);
+		wheel.advance(start + 100 * TICK);
+		wheel.cancel(entry);
+
+		assertEquals(-1, advanceUntilExpired(wheel, entry, start + 100 * TICK, start + LIFETIME + 10 * TICK));
+	}
+}
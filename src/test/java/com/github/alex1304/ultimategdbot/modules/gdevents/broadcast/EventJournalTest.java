@@ -0,0 +1,54 @@
+package com.github.alex1304.ultimategdbot.modules.gdevents.broadcast;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+import com.github.alex1304.ultimategdbot.dbentities.JournalDelivery;
+
+/**
+ * Checks that broadcasts still running are kept away from replays, however
+ * long they take
+ *
+ * @author Alex1304
+ */
+public class EventJournalTest {
+
+	private static JournalDelivery pending(long entryID, long channelID) {
+		return new JournalDelivery(entryID, 1, channelID, "", JournalDelivery.PENDING, 0,
+				new Timestamp(System.currentTimeMillis()));
+	}
+
+	@Test
+	public void broadcastWithQueuedDeliveriesIsRunning() throws InterruptedException {
+		EventJournal journal = new EventJournal();
+		journal.started(1, 3);
+		journal.markFailed(pending(1, 1));
+
+		// Older than any flush period, the other sends are still waiting in the request buffer
+		Thread.sleep(50);
+		assertTrue(journal.isRunning(1));
+	}
+
+	@Test
+	public void finishedBroadcastIsRunningUntilWritten() {
+		EventJournal journal = new EventJournal();
+		journal.started(1, 2);
+		journal.markFailed(pending(1, 1));
+		journal.markFailed(pending(1, 2));
+
+		// The updates are still waiting for the next batch, the database says PENDING
+		assertTrue(journal.isRunning(1));
+	}
+
+	@Test
+	public void broadcastOfPreviousRunIsNotRunning() {
+		EventJournal journal = new EventJournal();
+		journal.started(1, 1);
+
+		assertFalse(journal.isRunning(2));
+	}
+}